@@ -1,104 +1,100 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+// The game's ANSI art, read from the assets when it is first shown.
+//
+// Each piece is art/<name>.txt.gz, or art/<name>.txt while it is being edited. Rooms can have their
+// own art in art/rooms/<room name>.txt.gz, with the name in lower case and anything other than letters
+// and digits replaced by '_' (see roomArtName); the game window shows it while the player is there.
+// Recently shown art is kept in a small cache that the garbage collector may empty when memory runs low.
 public class ANSIArt {
+    private static final int CACHE_SIZE = 16;
+    private static final String MISSING = ""; // Remembered for art that is not in the assets, compared by identity
+
+    private static final Map<String, SoftReference<String>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SoftReference<String>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
 
     public static String getStartScreenArt() {
-        return
-                "████████████████████████████████████████████████████████████████████████████████████████████████████\n" +
-                        "████████████████████████████████████████████████████████████████████████████████████████████████████\n" +
-                        "████████████████████████████████████████████████████████████████████████████████████████████████████\n" +
-                        "███████████████████████████████████████████████████████████████████████████████████████████████████ \n" +
-                        "████████ ███ ████████ ███████ █ █████  █  █                                                         \n" +
-                        "█████ ██ █████   ██ ██████ ██ ████ ████   ██████         █              █████████                   \n" +
-                        "████   ███  █████    ███ ██████████ █ ███ █  ██████    ███          ███████ ███████                 \n" +
-                        "█  ██████  ███ █  ██  ██ █████████ █ █   ███   ███████            █████  ███████ ███                \n" +
-                        " ██ █ ██   ████ ███████ ██ █   ██ ██ █ ███████ █ ███████         █████ ████████ ██████            █ \n" +
-                        "█ ███  █ █████████ ██     ██████ █ █████████████                ██ █ █ █████ ██████████             \n" +
-                        "█████ ██ ███ ██ ███ ███   █ ██████     █   ██ ███████           ██ ████████ █ █████████        ██ █ \n" +
-                        "     ██ █████ ██████   ██████    █         ███                 ███     ███████████ ████████         \n" +
-                        " █ ███   ██████████       ████ ████ █████                       ██         █ █ ███ ████  ██████     \n" +
-                        "█████ ██ ██ █████  ██████ █  ██ ████ ████ █                     ██ █████   █████ █ ██████████████   \n" +
-                        "  █  ██ ████ █████    ████   ███████ ████                           █       ███  ████████████  ████ \n" +
-                        "████████████████████ █  ███████ ████ ██ ██ █ █                           ██ ███ █  █  ██ ██████████ \n" +
-                        "████████████████   ████  ████ ███████       ██    █                 ██ ██   █ █ ███ ██████  ██      \n" +
-                        "█████████████ ███   █ ██ █     █   ██ ██████ ██████                ███     █ ██ ████████ ████       \n" +
-                        "█████ █████████ ██ ██ ███████ ██ █ ██   █████            ████        █████████   ████ ██████        \n" +
-                        "█ ██    ██████████ ██ ████   ████   █   ██████    ██                 █ ███████████ █ ███████   █    \n" +
-                        "███████ █ ████████    █████  █  ███████ ████  █        █ ██   █        █ ███ █████ █ ███  ██    █   \n" +
-                        "████████    ██  █ ██████   █████  ███████                   █           ███   ██  █ █  █ ██     █   \n" +
-                        " █████ ████ █████████████ ███████ █ ██   ████ █ █    █████                     ████   █   █     █   \n" +
-                        "█████   ███    ██ █████████ ████   ██    ██ █  █ █ ██  █████████████ ██      █        █   █      █  \n" +
-                        "█████████ █ ████████  ████  █ ███████████████   ██  ███          █                    █   █         \n" +
-                        "███████ █ █ █ █████    ███ ██ ██  ███ ██████ █ ██      ███████   ██    █            █   █     █     \n" +
-                        "█████████ █ █    ███ ██ ██ ██  ██ ██████ █ █ █ ███  ██████      █         █       █   █ █ █ █  █    \n" +
-                        "████████████ ███  ███████████  ████████  █   ████  █         ██ █         █        █    █ █ █  █    \n" +
-                        "█████████ ███   █ █  ██ █   ███ ██  ██ ███ ██ █      █ ██ █  █    ██       █  █     ██ ██ █   ██    \n" +
-                        "██████████████ ██ █████████ ███    ███ █  ████ ██    ████████████ █            █      █ █ █   █     \n" +
-                        "█████████████████     █████ █ █████   ████ ██ █ ██                   █          █      █  █   █     \n" +
-                        "███████████  ████  █    ███████████  █   ██████  ███  █          █   ██          █      █     █     \n" +
-                        "███████████████ █████ ██ ██████      █ ████  ██   ███          █ █    █           ██   █  ██  █     \n" +
-                        "███ █████████████ █  ██ █ ███  █ ██████████  ██    ████ ██    █ █     ██           █     █ █        \n" +
-                        "█████████████████████████      █    █ ██   ████     ███ █              ██          ██        ██     \n" +
-                        "████████████████████████ ████  █ ██ ███ █████ █  █   ███     ███    █   █            █         ███  \n" +
-                        "██████ █   ████████ ██████████████████ ██     █       ██       █ █      ██   █  ██    ██      █  ██ \n" +
-                        "███  ██  ███ ███████████████████████████  ██████               █ ███ █   ██  █   ██    ███      █  █\n" +
-                        "██████ ██████ █    █   █   ██  █ █████                           █  █ ███      ████████████████  \n" +
-                        "███  ███████ ██████████████ ██     ██     █  █ ███ █ ████     █████  ███   █   ███ ████████████████ \n" +
-                        "█████████████  ████████████ █████ ██  █ █████ ███████████████      █ ██ ████████ ███████████████████\n" +
-                        "███████████████████████████████████████████████████████████████████████████████████████████████████\n" +
-                        "████████████████████████████████████████████████████████████████████████████████████████████████████\n" +
-                        "████████████████████████████████████████████████████████████████████████████████████████████████████\n";
+        return art("start_screen");
     }
 
 
     // Method to return a specific ANSI art (e.g., a title screen)
     public static String getTitleScreen() {
-        return """
-                               __| |__________________________________________________________________________| |__
-                               __   __________________________________________________________________________   __
-                                 | |                                                                          | | \s
-                                 | |                                                                          | | \s
-                                 | |      __    __   _______  __       __         ____    ____   _______.     | | \s
-                                 | |     |  |  |  | |   ____||  |     |  |        \\   \\  /   /  /       |     | | \s
-                                 | |     |  |__|  | |  |__   |  |     |  |         \\   \\/   /  |   (----`     | | \s
-                                 | |     |   __   | |   __|  |  |     |  |          \\      /    \\   \\         | | \s
-                                 | |     |  |  |  | |  |____ |  `----.|  `----.      \\    / .----)   |        | | \s
-                                 | |     |__|  |__| |_______||_______||_______|       \\__/  |_______/         | | \s
-                                 | |                                                                          | | \s
-                                 | |      __    __   _______     ___   ____    ____  _______ .__   __.        | | \s
-                                 | |     |  |  |  | |   ____|   /   \\  \\   \\  /   / |   ____||  \\ |  |        | | \s
-                                 | |     |  |__|  | |  |__     /  ^  \\  \\   \\/   /  |  |__   |   \\|  |        | | \s
-                                 | |     |   __   | |   __|   /  /_\\  \\  \\      /   |   __|  |  . `  |        | | \s
-                                 | |     |  |  |  | |  |____ /  _____  \\  \\    /    |  |____ |  |\\   |        | | \s
-                                 | |     |__|  |__| |_______/__/     \\__\\  \\__/     |_______||__| \\__|        | | \s
-                                 | |                                                                          | | \s
-                               __| |__________________________________________________________________________| |__
-                               __   __________________________________________________________________________   __
-                                 | |                                                                          | | \s         
-                """;
+        return art("title_screen");
     }
 
     // Method to return a simple room art
     public static String getRoomArt() {
-        return """
-                        ________
-                       |        |
-                       |  Room  |
-                       |________|
-                       |        |
-                       |        |
-                       |________|
-                """;
+        return art("room");
+    }
+
+    // The room's own art, or null if it has none
+    public static String getRoomArt(String roomName) {
+        String art = find(roomArtName(roomName));
+        return art != MISSING ? art : null;
+    }
+
+    // Name of the art for a room, e.g. "rooms/room_2" for "Room 2"
+    public static String roomArtName(String roomName) {
+        return "rooms/" + roomName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_");
     }
 
     // Method to return a loading screen ANSI art
     public static String getLoadingArt() {
-        return """
-                        ██████╗  ██████╗ ███████╗
-                        ██╔══██╗██╔═══██╗██╔════╝
-                        ██████╔╝██║   ██║███████╗
-                        ██╔═══╝ ██║   ██║╚════██║
-                        ██║     ╚██████╔╝███████║
-                        ╚═╝      ╚═════╝ ╚══════╝
-                """;
+        return art("loading");
+    }
+
+    // Art that should always be there; a missing piece is logged and shown as nothing
+    private static String art(String name) {
+        String art = find(name);
+        if (art == MISSING) {
+            GameLog.warn(GameLog.Category.UI, "No art called {} in the assets", name);
+        }
+        return art;
+    }
+
+    // The art from the cache, or from the assets. MISSING if there is none.
+    private static String find(String name) {
+        synchronized (cache) {
+            SoftReference<String> cached = cache.get(name);
+            String art = cached != null ? cached.get() : null;
+            if (art != null) {
+                return art;
+            }
+        }
+        String art = load(name); // Read outside the lock, two threads may both read the same art
+        synchronized (cache) {
+            cache.put(name, new SoftReference<>(art));
+        }
+        return art;
+    }
+
+    private static String load(String name) {
+        String assetName = "art/" + name + ".txt";
+        try {
+            if (Assets.exists(assetName)) {
+                return new String(Assets.read(assetName), StandardCharsets.UTF_8); // Loose text wins, so art can be edited in place
+            }
+            if (Assets.exists(assetName + ".gz")) {
+                try (InputStream in = new GZIPInputStream(Assets.open(assetName + ".gz"))) {
+                    return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        } catch (IOException e) {
+            GameLog.warn(GameLog.Category.UI, "Could not read the art {}: {}", name, e);
+        }
+        return MISSING;
     }
 
     // You can add more methods to get different kinds of ANSI art
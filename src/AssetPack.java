@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// Read-only view of an asset pack written by AssetPackBuilder.
+//
+// The file is memory-mapped and only its table of contents is read up front. An entry is inflated
+// when it is asked for, so assets that are never used are never read from disk. Entries can also be
+// streamed, which keeps long music tracks from being inflated all at once.
+public class AssetPack {
+    public static final String FILE_NAME = "assets.pack";
+
+    private record Entry(int method, int offset, int storedSize, int size, int crc) {
+    }
+
+    private final Path path;
+    private final ByteBuffer data;
+    private final HashMap<String, Entry> entries = new HashMap<>(); // Asset name -> where it is stored
+
+    private AssetPack(Path path, ByteBuffer data) throws IOException {
+        this.path = path;
+        this.data = data;
+        int count = data.getInt(8);
+        int position = AssetPackBuilder.HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            int nameLength = data.getShort(position) & 0xFFFF;
+            byte[] name = new byte[nameLength];
+            data.get(position + 2, name);
+            position += 2 + nameLength;
+            Entry entry = new Entry(data.get(position), data.getInt(position + 1), data.getInt(position + 5),
+                    data.getInt(position + 9), data.getInt(position + 13));
+            position += AssetPackBuilder.ENTRY_FIXED_SIZE;
+            if ((long) entry.offset() + entry.storedSize() > data.capacity()) {
+                throw new IOException(path + ": entry runs past the end of the file");
+            }
+            entries.put(new String(name, StandardCharsets.UTF_8), entry);
+        }
+    }
+
+    // Map a pack and read its table of contents
+    public static AssetPack open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < AssetPackBuilder.HEADER_SIZE) {
+                throw new IOException(path + " is not an asset pack");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt(0) != AssetPackBuilder.MAGIC || data.getInt(4) != AssetPackBuilder.VERSION) {
+                throw new IOException(path + " is not an asset pack or has the wrong version");
+            }
+            return new AssetPack(path, data); // The mapping stays valid after the channel is closed
+        }
+    }
+
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    // Inflate a whole entry and check it against its checksum
+    public byte[] read(String name) throws IOException {
+        Entry entry = entry(name);
+        byte[] result = new byte[entry.size()];
+        if (entry.method() == AssetPackBuilder.STORED) {
+            data.get(entry.offset(), result);
+        } else {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(stored(entry));
+                int length = 0;
+                while (length < result.length && !inflater.finished()) {
+                    int inflated = inflater.inflate(result, length, result.length - length);
+                    if (inflated == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                if (length != result.length) {
+                    throw new IOException(path + ": " + name + " is truncated");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(path + ": " + name + " is corrupt", e);
+            } finally {
+                inflater.end();
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(result);
+        if ((int) crc.getValue() != entry.crc()) {
+            throw new IOException(path + ": " + name + " fails its checksum");
+        }
+        return result;
+    }
+
+    // Stream an entry, inflating as it is read
+    public InputStream open(String name) throws IOException {
+        Entry entry = entry(name);
+        InputStream stored = new BufferInputStream(stored(entry));
+        if (entry.method() == AssetPackBuilder.STORED) {
+            return stored;
+        }
+        return new InflaterInputStream(stored, new Inflater(), 8192) {
+            private boolean ended;
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!ended) {
+                    ended = true;
+                    inf.end(); // Our own Inflater is not ended by InflaterInputStream
+                }
+            }
+        };
+    }
+
+    private Entry entry(String name) throws IOException {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new IOException(path + " has no asset " + name);
+        }
+        return entry;
+    }
+
+    private ByteBuffer stored(Entry entry) {
+        return data.slice(entry.offset(), entry.storedSize());
+    }
+
+    // Reads a slice of the mapping without copying it first
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int limit) {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.reset();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// Packs asset files into the single file read by AssetPack.
+//
+// Layout (big endian):
+//   header   magic, version, entryCount
+//   contents per entry: (short length, UTF-8 name), method byte, offset, stored size, size, CRC-32
+//   data     every entry's bytes, deflated unless that saves too little to be worth inflating
+//
+// Names are paths relative to the resources directory with '/' separators, e.g. "sounds/move_sound.wav".
+public class AssetPackBuilder {
+    public static final int MAGIC = 0x41474150; // "AGAP"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 3 * 4;
+    public static final int ENTRY_FIXED_SIZE = 1 + 4 * 4; // Method, offset, stored size, size, CRC after the name
+
+    public static final int STORED = 0;
+    public static final int DEFLATED = 1;
+
+    public static final String[] DEFAULT_DIRECTORIES = {"sounds", "art"}; // Worlds have their own compiled format
+
+    private static final double MIN_SAVING = 0.1; // Store entries that deflate by less than this
+
+    private record Packed(String name, int method, byte[] stored, int size, int crc) {
+    }
+
+    // Pack every file under the given directories of a resources directory
+    public static int build(Path resources, Path output, String... directories) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String directory : directories) {
+            Path root = resources.resolve(directory);
+            if (Files.isDirectory(root)) {
+                try (Stream<Path> walk = Files.walk(root)) {
+                    walk.filter(Files::isRegularFile).sorted().forEach(files::add);
+                }
+            }
+        }
+
+        List<Packed> entries = new ArrayList<>(); // Compressed in memory, the assets are small
+        long contentsSize = 0;
+        for (Path file : files) {
+            String name = resources.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+            byte[] bytes = Files.readAllBytes(file);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            byte[] deflated = deflate(bytes);
+            boolean worthIt = deflated.length < bytes.length * (1 - MIN_SAVING);
+            entries.add(new Packed(name, worthIt ? DEFLATED : STORED, worthIt ? deflated : bytes, bytes.length, (int) crc.getValue()));
+            contentsSize += 2 + name.getBytes(StandardCharsets.UTF_8).length + ENTRY_FIXED_SIZE;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            long offset = HEADER_SIZE + contentsSize;
+            for (Packed entry : entries) {
+                byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeByte(entry.method());
+                out.writeInt(Math.toIntExact(offset));
+                out.writeInt(entry.stored().length);
+                out.writeInt(entry.size());
+                out.writeInt(entry.crc());
+                offset += entry.stored().length;
+            }
+            for (Packed entry : entries) {
+                out.write(entry.stored());
+            }
+        }
+        return entries.size();
+    }
+
+    private static byte[] deflate(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (OutputStream out = new DeflaterOutputStream(buffer, deflater)) {
+            out.write(bytes);
+        } finally {
+            deflater.end();
+        }
+        return buffer.toByteArray();
+    }
+
+    // Build a pack: java AssetPackBuilder [resources directory] [output]
+    public static void main(String[] args) throws IOException {
+        Path resources = Path.of(args.length > 0 ? args[0] : "resources");
+        Path output = args.length > 1 ? Path.of(args[1]) : resources.resolve(AssetPack.FILE_NAME);
+        long start = System.nanoTime();
+        int count = build(resources, output, DEFAULT_DIRECTORIES);
+        System.out.printf("Packed %d assets into %s (%d bytes) in %.1f ms%n", count, output, Files.size(output),
+                (System.nanoTime() - start) / 1e6);
+    }
+}
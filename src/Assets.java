@@ -0,0 +1,90 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+
+// Finds the game's assets, wherever the game is started from.
+//
+// The resources directory is taken from -Dadventure.assets, or else searched for next to and above
+// the location the classes were loaded from, and only then in the working directory. If it holds an
+// asset pack the assets are read from it; anything not in the pack is read as a loose file, so a
+// checkout without a built pack still works.
+public final class Assets {
+    private static final String DIRECTORY_PROPERTY = "adventure.assets";
+    private static final String DIRECTORY_NAME = "resources";
+    private static final int PARENTS_SEARCHED = 3;
+
+    private static final Path ROOT = findRoot();
+    private static final AssetPack PACK = openPack();
+
+    private Assets() {
+    }
+
+    // Directory the assets are resolved against
+    public static Path getRoot() {
+        return ROOT;
+    }
+
+    public static boolean exists(String name) {
+        return (PACK != null && PACK.contains(name)) || Files.isRegularFile(ROOT.resolve(name));
+    }
+
+    // The whole asset
+    public static byte[] read(String name) throws IOException {
+        if (PACK != null && PACK.contains(name)) {
+            return PACK.read(name);
+        }
+        return Files.readAllBytes(ROOT.resolve(name));
+    }
+
+    // Stream an asset. The stream supports mark and reset, as AudioSystem needs.
+    public static InputStream open(String name) throws IOException {
+        if (PACK != null && PACK.contains(name)) {
+            return new BufferedInputStream(PACK.open(name));
+        }
+        return new BufferedInputStream(Files.newInputStream(ROOT.resolve(name)));
+    }
+
+    private static Path findRoot() {
+        String configured = System.getProperty(DIRECTORY_PROPERTY);
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        try {
+            CodeSource source = Assets.class.getProtectionDomain().getCodeSource();
+            if (source != null) {
+                Path location = Path.of(source.getLocation().toURI());
+                if (Files.isRegularFile(location)) {
+                    location = location.getParent(); // Loaded from a jar
+                }
+                for (int i = 0; i <= PARENTS_SEARCHED && location != null; i++) {
+                    Path candidate = location.resolve(DIRECTORY_NAME);
+                    if (Files.isDirectory(candidate)) {
+                        return candidate;
+                    }
+                    location = location.getParent();
+                }
+            }
+        } catch (URISyntaxException | SecurityException | IllegalArgumentException e) {
+            GameLog.debug(GameLog.Category.GAME, "Cannot locate the classes, looking for assets in the working directory: {}", e);
+        }
+        return Path.of(DIRECTORY_NAME);
+    }
+
+    private static AssetPack openPack() {
+        Path path = ROOT.resolve(AssetPack.FILE_NAME);
+        if (!Files.isRegularFile(path)) {
+            GameLog.debug(GameLog.Category.GAME, "No asset pack in {}, reading loose files", ROOT);
+            return null;
+        }
+        try {
+            return AssetPack.open(path);
+        } catch (IOException e) {
+            GameLog.warn(GameLog.Category.GAME, "Ignoring unreadable asset pack: {}", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.util.Locale;
+
+// Where SoundManager sends its sound cues.
+//
+// The mixer backend plays them through the AudioEngine. Hosts without a sound device get the null
+// backend, which does nothing, so no decoding or line lookups happen there at all; tests and
+// simulations can use the capture backend to see which cues fired and when.
+public interface AudioBackend {
+    String BACKEND_PROPERTY = "adventure.audio"; // mixer, null or capture; detected when not set
+
+    String getName();
+
+    // Prepare a sound effect so it can be played without reading the asset again
+    void load(String soundName, String assetName) throws IOException, UnsupportedAudioFileException;
+
+    // Play a loaded sound effect. Returns false if it could not be played.
+    boolean play(String soundName, int priority);
+
+    // Start a music track, crossfading from the current one (0 switches at once)
+    void playMusic(String assetName, int crossfadeMillis);
+
+    void stopMusic();
+
+    void stopEffects();
+
+    void setBusGain(AudioEngine.Bus bus, float decibels);
+
+    // The backend for this process: the one named by -Dadventure.audio, else the mixer backend if
+    // there is a device that can play SoundCache.FORMAT, else the null backend. Decided once.
+    static AudioBackend detect() {
+        return Detected.BACKEND;
+    }
+
+    final class Detected {
+        static final AudioBackend BACKEND = choose();
+
+        private Detected() {
+        }
+
+        private static AudioBackend choose() {
+            String configured = System.getProperty(BACKEND_PROPERTY);
+            if (configured != null) {
+                switch (configured.trim().toLowerCase(Locale.ROOT)) {
+                    case "mixer":
+                        return new MixerAudioBackend();
+                    case "null", "none", "off":
+                        return NullAudioBackend.INSTANCE;
+                    case "capture":
+                        return new CaptureAudioBackend();
+                    default:
+                        GameLog.warn(GameLog.Category.SOUND, "Unknown audio backend {}, detecting one", configured);
+                }
+            }
+            if (GraphicsEnvironment.isHeadless()) {
+                return NullAudioBackend.INSTANCE;
+            }
+            try {
+                if (AudioSystem.isLineSupported(new DataLine.Info(SourceDataLine.class, SoundCache.FORMAT))) {
+                    return new MixerAudioBackend();
+                }
+            } catch (SecurityException | IllegalArgumentException e) {
+                GameLog.debug(GameLog.Category.SOUND, "Audio device lookup failed: {}", e);
+            }
+            GameLog.info(GameLog.Category.SOUND, "No audio device found, sound is disabled");
+            return NullAudioBackend.INSTANCE;
+        }
+    }
+}
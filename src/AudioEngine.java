@@ -0,0 +1,215 @@
+import javax.sound.sampled.*;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The one place sound leaves the game: a software mixer writing to a single output line.
+//
+// Sound effects play as voices. There are at most MAX_VOICES at a time; when all are busy a new
+// sound takes over the voice with the lowest priority (the oldest of those), as long as that priority
+// is not higher than its own, and is dropped otherwise. The theme music is mixed in from the
+// ThemeStreamer. Effects and music each have a bus with its own gain, and both go through a master
+// gain. A mixer thread renders a few milliseconds at a time, so a sound starts within about
+// CHUNK_FRAMES + LINE_BUFFER_FRAMES frames of being requested.
+public final class AudioEngine {
+    public enum Bus {EFFECTS, MUSIC}
+
+    public static final int MAX_VOICES = 8;
+    private static final int CHUNK_FRAMES = 512;        // Frames mixed per pass, about 12 ms
+    private static final int LINE_BUFFER_FRAMES = 2048; // About 46 ms queued in the line
+    private static final int CHANNELS = 2;              // SoundCache.FORMAT is stereo
+
+    private static final class Holder {
+        static final AudioEngine INSTANCE = new AudioEngine();
+    }
+
+    // A sound effect being played, owned by the mixer thread once it has been queued
+    private static final class Voice {
+        final byte[] samples; // Frames in SoundCache.FORMAT
+        final int priority;
+        int position;         // Next byte to play
+
+        Voice(byte[] samples, int priority) {
+            this.samples = samples;
+            this.priority = priority;
+        }
+    }
+
+    private final SoundCache sounds = new SoundCache();
+    private final ThemeStreamer music = new ThemeStreamer();
+    private final ConcurrentLinkedQueue<Voice> requests = new ConcurrentLinkedQueue<>();
+    private final Voice[] voices = new Voice[MAX_VOICES]; // Mixer thread only; null when free
+    private volatile float[] busGains = {1f, 1f};         // Linear, by Bus ordinal; replaced when changed
+    private volatile float masterGain = 1f;
+    private volatile boolean stopEffects;
+    private final AtomicLong stolenVoices = new AtomicLong();
+    private final AtomicLong droppedSounds = new AtomicLong();
+
+    private volatile boolean available = true; // Cleared when no output line can be opened
+    private Thread mixerThread;
+
+    private AudioEngine() {
+    }
+
+    public static AudioEngine getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // Decoded sound effects, shared by every SoundManager
+    public SoundCache getSounds() {
+        return sounds;
+    }
+
+    // Background music, mixed on the MUSIC bus
+    public ThemeStreamer getMusic() {
+        start();
+        return music;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    // Gain of a bus in decibels (0 is unchanged, negative is quieter)
+    public void setBusGain(Bus bus, float decibels) {
+        float[] gains = busGains.clone();
+        gains[bus.ordinal()] = toLinear(decibels);
+        busGains = gains;
+    }
+
+    public void setMasterGain(float decibels) {
+        masterGain = toLinear(decibels);
+    }
+
+    // Queue a cached sound effect. Returns false if it is not loaded or there is no output.
+    public boolean play(String soundName, int priority) {
+        byte[] samples = sounds.getSamples(soundName);
+        if (samples == null || !available) {
+            return false;
+        }
+        start();
+        requests.add(new Voice(samples, priority));
+        return true;
+    }
+
+    // Silence every playing effect; the music keeps going
+    public void stopEffects() {
+        requests.clear();
+        stopEffects = true;
+    }
+
+    // Effects that cut off a lower priority voice, and effects dropped because every voice outranked them
+    public long getStolenVoiceCount() {
+        return stolenVoices.get();
+    }
+
+    public long getDroppedSoundCount() {
+        return droppedSounds.get();
+    }
+
+    private synchronized void start() {
+        if (mixerThread == null && available) {
+            mixerThread = new Thread(this::mixLoop, "audio-mixer");
+            mixerThread.setDaemon(true);
+            mixerThread.start();
+        }
+    }
+
+    private void mixLoop() {
+        SourceDataLine line;
+        try {
+            line = AudioSystem.getSourceDataLine(SoundCache.FORMAT);
+            line.open(SoundCache.FORMAT, LINE_BUFFER_FRAMES * SoundCache.FORMAT.getFrameSize());
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            available = false;
+            requests.clear();
+            GameLog.warn(GameLog.Category.SOUND, "No audio line, sound is disabled: {}", e);
+            return;
+        }
+        float[] effects = new float[CHUNK_FRAMES * CHANNELS];
+        float[] musicMix = new float[CHUNK_FRAMES * CHANNELS];
+        byte[] bytes = new byte[CHUNK_FRAMES * SoundCache.FORMAT.getFrameSize()];
+        line.start();
+        while (true) {
+            mixChunk(effects, musicMix, bytes);
+            line.write(bytes, 0, bytes.length); // Blocks until there is room, which paces the loop
+        }
+    }
+
+    // Render one chunk of output into bytes
+    private void mixChunk(float[] effects, float[] musicMix, byte[] bytes) {
+        if (stopEffects) {
+            stopEffects = false;
+            Arrays.fill(voices, null);
+        }
+        for (Voice request; (request = requests.poll()) != null; ) {
+            assignVoice(request);
+        }
+
+        Arrays.fill(effects, 0f);
+        Arrays.fill(musicMix, 0f);
+        for (int v = 0; v < voices.length; v++) {
+            Voice voice = voices[v];
+            if (voice == null) {
+                continue;
+            }
+            int samples = Math.min(effects.length, (voice.samples.length - voice.position) / 2);
+            for (int i = 0; i < samples; i++) {
+                effects[i] += SoundCache.sample(voice.samples, voice.position + i * 2);
+            }
+            voice.position += samples * 2;
+            if (voice.position >= voice.samples.length) {
+                voices[v] = null; // Finished
+            }
+        }
+        music.mix(musicMix, CHUNK_FRAMES);
+
+        float[] gains = busGains;
+        float effectsGain = gains[Bus.EFFECTS.ordinal()] * masterGain;
+        float musicGain = gains[Bus.MUSIC.ordinal()] * masterGain;
+        for (int i = 0; i < effects.length; i++) {
+            effects[i] = effects[i] * effectsGain + musicMix[i] * musicGain;
+        }
+        toBytes(effects, bytes, effects.length);
+    }
+
+    // Put a new sound in a free voice, or steal the least important one
+    private void assignVoice(Voice request) {
+        int victim = -1;
+        for (int v = 0; v < voices.length; v++) {
+            Voice voice = voices[v];
+            if (voice == null) {
+                voices[v] = request;
+                return;
+            }
+            if (victim < 0 || voice.priority < voices[victim].priority
+                    || (voice.priority == voices[victim].priority && voice.position > voices[victim].position)) {
+                victim = v;
+            }
+        }
+        if (voices[victim].priority <= request.priority) {
+            voices[victim] = request;
+            stolenVoices.incrementAndGet();
+        } else {
+            droppedSounds.incrementAndGet();
+        }
+    }
+
+    // Convert mixed samples to 16 bit little-endian, clipping anything out of range
+    static void toBytes(float[] samples, byte[] bytes, int count) {
+        for (int i = 0; i < count; i++) {
+            int sample = Math.round(samples[i]);
+            if (sample > Short.MAX_VALUE) {
+                sample = Short.MAX_VALUE;
+            } else if (sample < Short.MIN_VALUE) {
+                sample = Short.MIN_VALUE;
+            }
+            bytes[i * 2] = (byte) sample;
+            bytes[i * 2 + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    private static float toLinear(float decibels) {
+        return (float) Math.pow(10, decibels / 20);
+    }
+}
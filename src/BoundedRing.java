@@ -0,0 +1,86 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// A fixed-size queue for any number of producer threads and one consumer thread, without locks.
+//
+// Every slot has a sequence number: a producer may fill a slot when its sequence equals the position
+// the producer claimed, and the consumer may take it when it equals that position + 1. Taking moves
+// the sequence on by the capacity, which hands the slot to the producer one lap later. When the ring
+// is full an offer fails at once instead of waiting, and the caller decides what to do with the element.
+public final class BoundedRing<T> {
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final Object[] elements;
+    private final AtomicLong tail = new AtomicLong(); // Next position to claim, shared by all producers
+    private long head;                                // Next position to take, consumer thread only
+    private volatile Thread waiting;                  // The consumer while it is parked in await
+
+    // The ring holds at least capacity elements
+    public BoundedRing(int capacity) {
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1); // Rounded up to a power of two
+        mask = size - 1;
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        elements = new Object[size];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // Add an element and wake the consumer if it is waiting. Returns false if the ring is full.
+    public boolean offer(T element) {
+        long position;
+        while (true) {
+            position = tail.get();
+            long difference = sequences.getAcquire((int) position & mask) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break; // The slot is ours
+                }
+            } else if (difference < 0) {
+                return false; // Full: the consumer has not caught up with this slot yet
+            }
+            // Otherwise another producer claimed the position first, try the next one
+        }
+        int slot = (int) position & mask;
+        elements[slot] = element;
+        sequences.setRelease(slot, position + 1); // Publish the slot to the consumer
+        Thread consumer = waiting;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    // Whether the next element has been published. Consumer thread only.
+    public boolean hasPending() {
+        return sequences.getAcquire((int) head & mask) == head + 1;
+    }
+
+    // Take the oldest element, or return null if there is none. Consumer thread only.
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if (!hasPending()) {
+            return null;
+        }
+        int slot = (int) head & mask;
+        T element = (T) elements[slot];
+        elements[slot] = null; // Let the element be collected
+        sequences.setRelease(slot, head + mask + 1); // Hand the slot back to the producers
+        head++;
+        return element;
+    }
+
+    // Sleep until an element is offered, an unpark, or at most maxNanos. Consumer thread only.
+    public void await(long maxNanos) {
+        waiting = Thread.currentThread();
+        if (!hasPending()) {
+            LockSupport.parkNanos(maxNanos);
+        }
+        waiting = null;
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// Audio backend that plays nothing and records every cue with the time it fired, for tests,
+// simulations and checking that the right sounds go with the right actions.
+// Only the most recent MAX_CUES are kept.
+public final class CaptureAudioBackend implements AudioBackend {
+    public static final int MAX_CUES = 65536;
+
+    public enum Kind {LOAD, EFFECT, MUSIC, STOP_MUSIC, STOP_EFFECTS}
+
+    // One cue; time is in nanoseconds since the backend was created
+    public record Cue(long time, Kind kind, String name) {
+    }
+
+    private final long start = System.nanoTime();
+    private final ArrayDeque<Cue> cues = new ArrayDeque<>();
+    private long discarded; // Cues pushed out by newer ones
+
+    @Override
+    public String getName() {
+        return "capture";
+    }
+
+    @Override
+    public void load(String soundName, String assetName) {
+        record(Kind.LOAD, soundName);
+    }
+
+    @Override
+    public boolean play(String soundName, int priority) {
+        record(Kind.EFFECT, soundName);
+        return true;
+    }
+
+    @Override
+    public void playMusic(String assetName, int crossfadeMillis) {
+        record(Kind.MUSIC, assetName);
+    }
+
+    @Override
+    public void stopMusic() {
+        record(Kind.STOP_MUSIC, null);
+    }
+
+    @Override
+    public void stopEffects() {
+        record(Kind.STOP_EFFECTS, null);
+    }
+
+    @Override
+    public void setBusGain(AudioEngine.Bus bus, float decibels) {
+    }
+
+    // Cues recorded so far, oldest first
+    public synchronized List<Cue> getCues() {
+        return new ArrayList<>(cues);
+    }
+
+    public synchronized long getDiscardedCount() {
+        return discarded;
+    }
+
+    public synchronized void clear() {
+        cues.clear();
+        discarded = 0;
+    }
+
+    private synchronized void record(Kind kind, String name) {
+        if (cues.size() == MAX_CUES) {
+            cues.removeFirst();
+            discarded++;
+        }
+        cues.addLast(new Cue(System.nanoTime() - start, kind, name));
+    }
+}
@@ -0,0 +1,95 @@
+import java.lang.management.ManagementFactory;
+
+// Measures the cost of parsing and dispatching a command, without running the game behind it.
+// "legacy" is the old lowercase + switch of startsWith guards + substring dispatch, "parser" is
+// CommandParser. Both call handlers that only count, so the numbers are parse and dispatch alone.
+//
+// Usage: java CommandBenchmark [iterations]
+public class CommandBenchmark {
+    private static final String[] COMMANDS = {
+            "go north", "look", "take healing potion", "  Drop   wooden sword ", "equip iron sword",
+            "attack Grug The Orc", "eat apple", "drink healing potion", "show map", "inventory",
+            "health", "travel Room 9", "dance", "help"
+    };
+
+    private static long handled; // Keeps the JIT from dropping the work
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        CommandParser parser = new CommandParser(message -> handled++);
+        CommandParser.Handler count = (input, start, end) -> handled += end - start;
+        for (String verb : new String[]{"go", "take", "drop", "equip", "eat", "drink", "travel"}) {
+            parser.register(verb, CommandParser.Argument.REQUIRED, verb + " what?", count);
+        }
+        for (String verb : new String[]{"look", "help", "unlock", "show map", "health", "inventory", "exit"}) {
+            parser.register(verb, CommandParser.Argument.NONE, null, count);
+        }
+        parser.register("attack", CommandParser.Argument.OPTIONAL, null, count);
+
+        for (int round = 0; round < 3; round++) { // The first rounds warm up the JIT
+            report("legacy", iterations, () -> {
+                for (String command : COMMANDS) {
+                    legacyDispatch(command);
+                }
+            });
+            report("parser", iterations, () -> {
+                for (String command : COMMANDS) {
+                    if (!parser.dispatch(command)) {
+                        handled++;
+                    }
+                }
+            });
+        }
+    }
+
+    private static void report(String name, int iterations, Runnable batch) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            batch.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        long commands = (long) iterations * COMMANDS.length;
+        System.out.printf("%-7s %6.1f ns/command %7.1f bytes/command%n", name, (double) elapsed / commands, (double) bytes / commands);
+    }
+
+    // The dispatch GameController used before CommandParser, with the handlers replaced by counting
+    private static void legacyDispatch(String command) {
+        command = command.trim().toLowerCase();
+        switch (command) {
+            case String cmd when cmd.startsWith("go "):
+                handled += command.substring(3).trim().length();
+                break;
+            case "look", "help", "unlock", "show map", "health", "inventory", "exit":
+                handled++;
+                break;
+            case String cmd when cmd.startsWith("eat "):
+                handled += command.substring(4).trim().length();
+                break;
+            case String cmd when cmd.startsWith("drink "):
+                handled += command.substring(6).trim().length();
+                break;
+            case String cmd when cmd.startsWith("take "):
+                handled += command.substring(5).trim().length();
+                break;
+            case String cmd when cmd.startsWith("drop "):
+                handled += command.substring(5).trim().length();
+                break;
+            case String cmd when cmd.startsWith("equip "):
+                handled += command.substring(6).trim().length();
+                break;
+            case String cmd when cmd.startsWith("travel "):
+                handled += command.substring(7).trim().length();
+                break;
+            case String cmd when cmd.startsWith("attack"):
+                handled += command.substring(7).trim().length();
+                break;
+            default:
+                handled++;
+                break;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Turns a line of input into a verb and its argument and runs the handler registered for the verb.
+//
+// Verbs, including verbs of several words such as "show map", are kept in a trie that is walked one
+// character at a time, ignoring case and collapsing runs of spaces. Parsing creates no strings: the
+// handler gets the input with the bounds of the argument, and only makes a String if it needs one.
+public class CommandParser {
+    // What a verb expects after it
+    public enum Argument {
+        NONE,     // Nothing may follow the verb
+        OPTIONAL, // The handler also runs without an argument
+        REQUIRED  // Without an argument the verb's prompt is shown instead
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        void handle(CharSequence input, int argumentStart, int argumentEnd);
+    }
+
+    private static final int ROOT = 0;
+
+    // Trie nodes, stored as parallel arrays indexed by node
+    private char[] labels = new char[64];   // Character on the edge leading into the node
+    private int[] firstChild = new int[64];
+    private int[] nextSibling = new int[64];
+    private int[] verbs = new int[64];      // Verb ending at the node, or -1
+    private int nodeCount = 1;
+
+    private final List<Handler> handlers = new ArrayList<>();
+    private final List<Argument> arguments = new ArrayList<>();
+    private final List<String> prompts = new ArrayList<>();
+    private final Consumer<String> output; // Where prompts for missing arguments go
+
+    public CommandParser(Consumer<String> output) {
+        this.output = output;
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        Arrays.fill(verbs, -1);
+    }
+
+    // Register a verb. The prompt is shown when a REQUIRED argument is missing (e.g. "Take what?").
+    public void register(String verb, Argument argument, String prompt, Handler handler) {
+        int node = ROOT;
+        String normalized = verb.trim().toLowerCase().replaceAll("\\s+", " ");
+        for (int i = 0; i < normalized.length(); i++) {
+            node = childOrAdd(node, normalized.charAt(i));
+        }
+        if (verbs[node] >= 0) {
+            throw new IllegalArgumentException("Verb registered twice: " + verb);
+        }
+        verbs[node] = handlers.size();
+        handlers.add(handler);
+        arguments.add(argument);
+        prompts.add(prompt);
+    }
+
+    // Parse and run one line of input. Returns false if it is not a known command.
+    public boolean dispatch(CharSequence input) {
+        int start = 0, end = input.length();
+        while (start < end && Character.isWhitespace(input.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(input.charAt(end - 1))) {
+            end--;
+        }
+
+        // Walk the trie and remember the longest verb that ends at a word boundary
+        int node = ROOT;
+        int verb = -1, verbEnd = -1;
+        int position = start;
+        while (true) {
+            if (verbs[node] >= 0 && (position == end || Character.isWhitespace(input.charAt(position)))) {
+                verb = verbs[node];
+                verbEnd = position;
+            }
+            if (position == end) {
+                break;
+            }
+            char c = input.charAt(position);
+            if (Character.isWhitespace(c)) {
+                c = ' ';
+                while (position + 1 < end && Character.isWhitespace(input.charAt(position + 1))) {
+                    position++; // Several spaces count as one
+                }
+            } else {
+                c = Character.toLowerCase(c);
+            }
+            node = child(node, c);
+            if (node < 0) {
+                break;
+            }
+            position++;
+        }
+        if (verb < 0) {
+            return false;
+        }
+
+        int argumentStart = verbEnd;
+        while (argumentStart < end && Character.isWhitespace(input.charAt(argumentStart))) {
+            argumentStart++;
+        }
+        switch (arguments.get(verb)) {
+            case NONE:
+                if (argumentStart < end) {
+                    return false; // "look around" is not "look"
+                }
+                break;
+            case REQUIRED:
+                if (argumentStart == end) {
+                    output.accept(prompts.get(verb));
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        handlers.get(verb).handle(input, argumentStart, end);
+        return true;
+    }
+
+    // Convenience for handlers that need the argument as a String
+    public static String argument(CharSequence input, int start, int end) {
+        return input.subSequence(start, end).toString();
+    }
+
+    private int child(int node, char c) {
+        for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+            if (labels[child] == c) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    private int childOrAdd(int node, char c) {
+        int child = child(node, c);
+        if (child >= 0) {
+            return child;
+        }
+        if (nodeCount == labels.length) {
+            int size = labels.length * 2;
+            labels = Arrays.copyOf(labels, size);
+            firstChild = Arrays.copyOf(firstChild, size);
+            nextSibling = Arrays.copyOf(nextSibling, size);
+            verbs = Arrays.copyOf(verbs, size);
+            Arrays.fill(firstChild, nodeCount, size, -1);
+            Arrays.fill(nextSibling, nodeCount, size, -1);
+            Arrays.fill(verbs, nodeCount, size, -1);
+        }
+        child = nodeCount++;
+        labels[child] = c;
+        nextSibling[child] = firstChild[node];
+        firstChild[node] = child;
+        return child;
+    }
+}
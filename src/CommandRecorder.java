@@ -0,0 +1,147 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+// Writes every command a game accepts to a compact log, so the game can be played again exactly with
+// CommandReplay. Recording is on when -Dadventure.record=<directory> is set; every game then gets its
+// own file there, which is flushed after each command so a crash loses nothing.
+//
+// Format, with numbers as unsigned LEB128 varints unless a size is given:
+//   header   "AGCL", version (1 byte), seed (8 bytes), world file (length, UTF-8; empty for a world
+//            that was not loaded from a file)
+//   records  a tag byte, then
+//     COMMAND     milliseconds since the previous command, then index << 1 for a command already in
+//                 this log (numbered from 0 in order of first use), or length << 1 | 1 and the UTF-8
+//                 bytes for a new one
+//     CHECKPOINT  commands so far, state hash (8 bytes); written every CHECKPOINT_INTERVAL commands
+//     END         commands in the game, final state hash (8 bytes); written when the game shuts down
+public final class CommandRecorder implements Closeable {
+    public static final String RECORD_PROPERTY = "adventure.record";
+    public static final String FILE_EXTENSION = ".cmdlog";
+    public static final int MAGIC = 0x4147434c; // "AGCL"
+    public static final int VERSION = 1;
+    public static final int COMMAND = 1, CHECKPOINT = 2, END = 3;
+    public static final int CHECKPOINT_INTERVAL = 16;
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final AtomicInteger fileCounter = new AtomicInteger(); // Keeps games started in the same second apart
+
+    private final DataOutputStream out;
+    private final LongSupplier state; // Hash of the game's state after the last command
+    private final HashMap<String, Integer> knownCommands = new HashMap<>();
+    private long lastCommandAt = System.currentTimeMillis();
+    private int commands;
+    private boolean closed;
+
+    public CommandRecorder(OutputStream out, long seed, String world, LongSupplier state) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.state = state;
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeLong(seed);
+        writeString(world == null ? "" : world);
+        this.out.flush();
+    }
+
+    // A recorder writing to a new file in the directory named by -Dadventure.record, or null if
+    // recording is off or the file cannot be created
+    public static CommandRecorder startIfEnabled(long seed, String world, LongSupplier state) {
+        String directory = System.getProperty(RECORD_PROPERTY);
+        if (directory == null || directory.isEmpty()) {
+            return null;
+        }
+        Path file = Path.of(directory, LocalDateTime.now().format(FILE_TIME) + "-" + fileCounter.incrementAndGet() + FILE_EXTENSION);
+        try {
+            Files.createDirectories(file.getParent());
+            CommandRecorder recorder = new CommandRecorder(Files.newOutputStream(file), seed, world, state);
+            GameLog.info(GameLog.Category.GAME, "Recording commands to {}", file);
+            return recorder;
+        } catch (IOException e) {
+            GameLog.warn(GameLog.Category.GAME, "Could not record commands to {}: {}", file, e);
+            return null;
+        }
+    }
+
+    // Add a command the game has just carried out
+    public synchronized void record(String command) {
+        if (closed) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            out.writeByte(COMMAND);
+            writeVarint(Math.max(0, now - lastCommandAt));
+            lastCommandAt = now;
+            Integer index = knownCommands.get(command);
+            if (index != null) {
+                writeVarint((long) index << 1);
+            } else {
+                byte[] bytes = command.getBytes(StandardCharsets.UTF_8);
+                writeVarint((long) bytes.length << 1 | 1);
+                out.write(bytes);
+                knownCommands.put(command, knownCommands.size());
+            }
+            commands++;
+            if (commands % CHECKPOINT_INTERVAL == 0) {
+                out.writeByte(CHECKPOINT);
+                writeVarint(commands);
+                out.writeLong(state.getAsLong());
+            }
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // Write the final state and close the log. Later commands are ignored.
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            out.writeByte(END);
+            writeVarint(commands);
+            out.writeLong(state.getAsLong());
+            out.close();
+        } catch (IOException e) {
+            fail(e);
+        }
+        closed = true;
+    }
+
+    // A log that cannot be written must not stop the game
+    private void fail(IOException e) {
+        GameLog.warn(GameLog.Category.GAME, "Stopped recording commands: {}", e);
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // Already failing
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,238 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Plays recorded games (see CommandRecorder) again, headless and as fast as they will go, and checks
+// that every checkpoint and the final state hash come out the same as when the game was played.
+// Replaying logs many times over on every core turns real games into a load test; --paced waits
+// between commands as long as the player did.
+//
+// Usage: java CommandReplay [--repeat n] [--paced] <log>...
+public class CommandReplay {
+    // A recorded game; end is null if the game never shut down (the program was killed or crashed)
+    public record Log(long seed, String world, List<String> commands, List<Long> pauses, List<Checkpoint> checkpoints, Checkpoint end) {
+    }
+
+    // The state hash after the given number of commands
+    public record Checkpoint(int commands, long hash) {
+    }
+
+    // How a replay went; mismatchAt is the checkpoint's command count, or -1 if every hash matched
+    public record Result(int commands, int verified, int mismatchAt, long expected, long actual) {
+        public boolean matches() {
+            return mismatchAt < 0;
+        }
+    }
+
+    private static final AtomicInteger replayCounter = new AtomicInteger(); // Gives every replay its own save directory
+
+    // Output nobody reads, so replays only cost the game logic
+    private static final GameOutput DISCARD = new GameOutput() {
+        @Override
+        public void showMessage(String message) {
+        }
+
+        @Override
+        public void clearOutput() {
+        }
+    };
+
+    public static Log read(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return read(stream);
+        }
+    }
+
+    public static Log read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != CommandRecorder.MAGIC) {
+            throw new IOException("Not a command log");
+        }
+        int version = in.readUnsignedByte();
+        if (version != CommandRecorder.VERSION) {
+            throw new IOException("Unsupported command log version " + version);
+        }
+        long seed = in.readLong();
+        String world = new String(in.readNBytes((int) readVarint(in)), StandardCharsets.UTF_8);
+
+        List<String> known = new ArrayList<>();
+        List<String> commands = new ArrayList<>();
+        List<Long> pauses = new ArrayList<>();
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        Checkpoint end = null;
+        try {
+            int tag;
+            while (end == null && (tag = in.read()) >= 0) {
+                switch (tag) {
+                    case CommandRecorder.COMMAND -> {
+                        long pause = readVarint(in);
+                        long reference = readVarint(in);
+                        String command;
+                        if ((reference & 1) == 0) {
+                            command = known.get((int) (reference >>> 1));
+                        } else {
+                            command = new String(in.readNBytes((int) (reference >>> 1)), StandardCharsets.UTF_8);
+                            known.add(command);
+                        }
+                        pauses.add(pause);
+                        commands.add(command);
+                    }
+                    case CommandRecorder.CHECKPOINT -> checkpoints.add(new Checkpoint((int) readVarint(in), in.readLong()));
+                    case CommandRecorder.END -> end = new Checkpoint((int) readVarint(in), in.readLong());
+                    default -> throw new IOException("Unknown record " + tag + " after command " + commands.size());
+                }
+            }
+        } catch (EOFException e) {
+            // The last record was cut off by a crash; everything before it is still good
+        }
+        return new Log(seed, world, commands, pauses, checkpoints, end);
+    }
+
+    // Play a log on a fresh copy of its world and compare the state hashes
+    public static Result replay(Log log, WorldTemplate world, boolean paced) throws InterruptedException {
+        GameController controller = new GameController(DISCARD, world != null ? new Map(world) : new Map(), null, log.seed());
+        // Saves made during the replay go to a directory of its own, so the player's saves are never
+        // touched and loads find what the replay saved. Loading a save from an earlier game cannot be replayed.
+        Path saves = Path.of(System.getProperty("java.io.tmpdir"),
+                "adventure-replay-" + ProcessHandle.current().pid() + "-" + replayCounter.incrementAndGet());
+        controller.setSaveDirectory(saves);
+        try {
+            List<Checkpoint> expected = new ArrayList<>(log.checkpoints());
+            if (log.end() != null) {
+                expected.add(log.end());
+            }
+            int next = 0;
+            for (int i = 0; i <= log.commands().size(); i++) {
+                while (next < expected.size() && expected.get(next).commands() == i) {
+                    long actual = controller.stateHash();
+                    if (actual != expected.get(next).hash()) {
+                        return new Result(i, next, i, expected.get(next).hash(), actual);
+                    }
+                    next++;
+                }
+                if (i < log.commands().size()) {
+                    if (paced) {
+                        Thread.sleep(log.pauses().get(i));
+                    }
+                    controller.processCommand(log.commands().get(i));
+                }
+            }
+            return new Result(log.commands().size(), next, -1, 0, 0);
+        } finally {
+            controller.shutdown();
+            deleteSaves(saves);
+        }
+    }
+
+    private static void deleteSaves(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return; // Nothing was saved
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        } catch (IOException e) {
+            System.err.println("Could not remove " + directory + ": " + e);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.clearProperty(CommandRecorder.RECORD_PROPERTY); // Replays are not recorded again
+        int repeat = 1;
+        boolean paced = false;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--repeat" -> repeat = Integer.parseInt(args[++i]);
+                case "--paced" -> paced = true;
+                default -> files.add(Path.of(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: java CommandReplay [--repeat n] [--paced] <log>...");
+            return;
+        }
+
+        // Read every log and load each world once, as the server shares one world between its players
+        List<Log> logs = new ArrayList<>();
+        HashMap<String, WorldTemplate> worlds = new HashMap<>();
+        for (Path file : files) {
+            Log log = read(file);
+            logs.add(log);
+            if (!log.world().isEmpty() && !worlds.containsKey(log.world())) {
+                worlds.put(log.world(), WorldTemplate.open(Path.of(log.world())));
+            }
+        }
+
+        // Paced replays spend their time waiting, so they get a virtual thread each
+        long start = System.nanoTime();
+        List<Future<Result>> results = new ArrayList<>();
+        boolean pacedReplay = paced;
+        try (ExecutorService pool = paced ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+            for (int round = 0; round < repeat; round++) {
+                for (Log log : logs) {
+                    results.add(pool.submit(() -> replay(log, worlds.get(log.world()), pacedReplay)));
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long commands = 0;
+        int mismatches = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i).get();
+            commands += result.commands();
+            if (!result.matches()) {
+                mismatches++;
+            }
+            if (i < logs.size()) { // Report the first round; later rounds only count
+                System.out.println(files.get(i) + ": " + describe(logs.get(i), result));
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d replays, %d commands in %.2f s (%.0f commands/s), %d mismatches%n",
+                results.size(), commands, seconds, commands / seconds, mismatches);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String describe(Log log, Result result) {
+        if (!result.matches()) {
+            return String.format(Locale.ROOT, "MISMATCH after command %d: expected %016x, got %016x", result.mismatchAt(), result.expected(), result.actual());
+        }
+        String text = result.commands() + " commands, " + result.verified() + " state hashes match";
+        if (log.end() == null) {
+            int lastChecked = log.checkpoints().isEmpty() ? 0 : log.checkpoints().get(log.checkpoints().size() - 1).commands();
+            text += "; no final state was recorded, so the last " + (result.commands() - lastChecked) + " commands are unchecked";
+        }
+        return text;
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import java.util.Set;
+
+// Describes an enemy placed in a room of a WorldTemplate. Every session spawns its own Enemy from it.
+public record EnemySpawn(String type, String name, String description, int health, Weapon weapon) {
+    // Enemy types understood by spawn()
+    public static final Set<String> TYPES = Set.of("orc", "goblin", "troll", "vampire", "werewolf", "skeleton", "angel", "dragon", "demon");
+
+    // Create a fresh enemy for one game session
+    public Enemy spawn() {
+        Weapon sessionWeapon = weapon == null ? null : (Weapon) weapon.instantiate(); // Ranged weapons need their own ammo
+        switch (type.toLowerCase()) {
+            case "orc":
+                return new OrcEnemy(name, description, health, sessionWeapon);
+            case "goblin":
+                return new GoblinEnemy(name, description, health, sessionWeapon);
+            case "troll":
+                return new TrollEnemy(name, description, health, sessionWeapon);
+            case "vampire":
+                return new VampireEnemy(name, description, health, sessionWeapon);
+            case "werewolf":
+                return new WerewolfEnemy(name, description, health, sessionWeapon);
+            case "skeleton":
+                return new SkeletonEnemy(name, description, health, sessionWeapon);
+            case "angel":
+                return new AngelEnemy(name, description, health, sessionWeapon);
+            case "dragon":
+                return new DragonEnemy(name, description, health, sessionWeapon);
+            case "demon":
+                return new DemonBoss(name, description, health, sessionWeapon);
+            default:
+                throw new IllegalArgumentException("Unknown enemy type: " + type);
+        }
+    }
+}
@@ -1,87 +1,113 @@
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.swing.*;
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
 
 public class GameController {
     private Player player; // Instance of Player to manage player state
     private Enemy enemy; // Instance of the current enemy in the room
-    private UserInterface ui; // User interface for displaying messages and getting input
-    private SoundManager soundManager; // Manages game sounds
+    private GameOutput ui; // Output for displaying messages (Swing window or headless session)
+    private SoundManager soundManager; // Manages game sounds, null when running headless
     private Map gameMap; // Instance of the Map class for displaying the game map
+    private final CommandParser parser = createParser(); // Verbs and their handlers
+    private final GameEventBus events = new GameEventBus(); // Moves, fights and unlocks, for sound and logging
+    private static final long MOVE_SOUND_GAP_NANOS = 250_000_000L; // Steps closer together than this (travel) share one sound
+    private long lastMoveSound = System.nanoTime() - MOVE_SOUND_GAP_NANOS; // When the move sound last played, sound thread only
+    private final long seed;                 // Seed of random, recorded so a game can be replayed exactly
+    private final SplittableRandom random;   // The only source of chance any game rule may use
+    private final CommandRecorder recorder;  // Null unless -Dadventure.record is set
+    private SaveGame saves;                  // Save slots of this game, in -Dadventure.saves; null if saving is off
+
+    public static final String SEED_PROPERTY = "adventure.seed"; // -Dadventure.seed=<number> fixes the seed
+
+    // Constructor that wires the controller to its output, world and (optional) sound manager
+    public GameController(GameOutput ui, Map gameMap, SoundManager soundManager) {
+        this(ui, gameMap, soundManager, Long.getLong(SEED_PROPERTY, new SplittableRandom().nextLong()));
+    }
 
-    // Constructor that initializes the UserInterface, SoundManager, Map, and Player
-    public GameController(UserInterface ui) {
-        this.ui = ui; // Set the user interface
-        this.soundManager = new SoundManager(); // Initialize sound manager
-        this.gameMap = new Map(); // Initialize the Map instance
+    // The same, with a given seed for the game's randomness, as when a recorded game is replayed
+    public GameController(GameOutput ui, Map gameMap, SoundManager soundManager, long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.ui = ui; // Set the output the game writes to
+        this.soundManager = soundManager; // May be null for headless sessions
+        this.gameMap = gameMap; // Use the given Map instance
         initializeGame(); // Initialize the game and create the Player
-        soundManager.startTheme(); // Start background theme music
-    }
-
-    // Start the game and display the loading screen
-    public void startGame() {
-        System.out.println("Starting the game...");
-
-        // Start a new thread for the game start process
-        new Thread(() -> {
-            // Show the lore presentation first
-            LorePresentation lorePresentation = new LorePresentation();
-            try {
-                lorePresentation.displayLore(); // Display the lore presentation
-            } catch (InterruptedException e) {
-                System.err.println("Lore presentation error: " + e.getMessage());
-                return; // Exit if lore presentation fails
-            }
+        this.saves = new SaveGame(gameMap.getWorld(), SaveGame.defaultDirectory());
+        if (soundManager != null) {
+            soundManager.startTheme(); // Start background theme music
+            events.subscribe("sound", this::playEventSound); // Sounds never hold up a command
+        }
+        if (GameLog.isEnabled(GameLog.Category.GAME, GameLog.Level.DEBUG)) {
+            events.subscribe("log", event -> GameLog.debug(GameLog.Category.GAME, "Event: {}", event));
+        }
+        recorder = CommandRecorder.startIfEnabled(seed, gameMap.getWorld().getSource(), this::stateHash);
+    }
 
-            // After the lore presentation, show the loading screen
-            LoadingScreen loadingScreen = new LoadingScreen();
-            try {
-                loadingScreen.displayLoading(); // Display loading animation
-            } catch (InterruptedException | IOException e) {
-                System.err.println("Loading error: " + e.getMessage());
-                return; // Exit if loading fails
-            }
+    // Show the welcome text and the starting room
+    public void showWelcome() {
+        ui.showMessage("Welcome to the Adventure Game!");
+        ui.showMessage("Type 'help' to see the available commands.");
+        // playSoundEffect("start"); // Uncomment to play sound for starting the game
 
-            // Continue with the game UI after loading is complete
-            SwingUtilities.invokeLater(() -> {
-                if (ui == null) {
-                    System.err.println("UI is not initialized.");
-                    return;
-                }
+        if (player.getCurrentRoom() != null) {
+            ui.displayRoomDescription(player.getCurrentRoom()); // Display current room
+        } else {
+            GameLog.error(GameLog.Category.GAME, "Current room is not initialized.");
+        }
+    }
 
-                ui.showMessage("Welcome to the Adventure Game!");
-                ui.showMessage("Type 'help' to see the available commands.");
-                // soundManager.playSound("start"); // Uncomment to play sound for starting the game
+    // Method to play a sound effect by name, ignored when there is no sound manager
+    public void playSound(String soundName) {
+        if (soundManager != null) {
+            soundManager.playSoundEffect(soundName);
+        }
+    }
 
-                if (player.getCurrentRoom() != null) {
-                    ui.displayRoomDescription(player.getCurrentRoom()); // Display current room
-                } else {
-                    System.err.println("Current room is not initialized.");
+    // Sound effects for game events, played on the sound subscriber's thread
+    private void playEventSound(GameEvent event) {
+        switch (event) {
+            case GameEvent.Moved moved -> {
+                long now = System.nanoTime();
+                if (now - lastMoveSound >= MOVE_SOUND_GAP_NANOS) {
+                    lastMoveSound = now;
+                    soundManager.playSoundEffect("move");
                 }
-            });
-        }).start(); // Start the game start process thread
+            }
+            case GameEvent.DoorUnlocked unlocked -> soundManager.playSoundEffect("unlock");
+            default -> {
+            }
+        }
     }
 
-    // Method to ensure audio
-    public void playSound(String soundFile) {
-        try {
-            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new File(soundFile));
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioInputStream);
-            clip.start();
-        } catch (Exception e) {
-            e.printStackTrace(); // Print any exceptions for debugging
+    // Stop all sounds and event subscribers owned by this game, and finish its command log
+    public void shutdown() {
+        if (recorder != null) {
+            recorder.close();
+        }
+        events.close();
+        if (soundManager != null) {
+            soundManager.close(); // Stop any sounds
         }
     }
 
+    // Keep this game's saves somewhere else, as replays do so they never touch the player's saves.
+    // Null turns save and load off, as for server players, who have no saves of their own.
+    public void setSaveDirectory(Path directory) {
+        saves = directory == null ? null : new SaveGame(gameMap.getWorld(), directory);
+    }
+
+    // Events of this game, for anything else that wants to follow it
+    public GameEventBus getEvents() {
+        return events;
+    }
+
     // Initialize the game by setting the starting room and creating a Player
     private void initializeGame() {
         Room startingRoom = gameMap.getStartingRoom(); // Get the starting room from the game map
-        player = new Player(startingRoom, ui); // Initialize Player with the starting room
+        player = new Player(startingRoom, ui, events); // Initialize Player with the starting room
         updateCurrentEnemy(); // Check for enemies in the starting room
     }
 
@@ -93,64 +119,90 @@ public class GameController {
     }
 
 
+    // Register every command with the parser, which is the only way commands reach the game
+    private CommandParser createParser() {
+        CommandParser parser = new CommandParser(message -> ui.showMessage(message));
+        parser.register("go", CommandParser.Argument.REQUIRED, "Go where?", (input, start, end) ->
+                handleMovement(CommandParser.argument(input, start, end)));
+        parser.register("look", CommandParser.Argument.NONE, null, (input, start, end) -> lookAround());
+        parser.register("help", CommandParser.Argument.NONE, null, (input, start, end) -> ui.showHelp());
+        parser.register("unlock", CommandParser.Argument.NONE, null, (input, start, end) -> unlockDoor());
+        parser.register("show map", CommandParser.Argument.NONE, null, (input, start, end) -> showMap());
+        parser.register("health", CommandParser.Argument.NONE, null, (input, start, end) -> showHealth());
+        parser.register("eat", CommandParser.Argument.REQUIRED, "Eat what?", (input, start, end) ->
+                handleFoodConsumption(CommandParser.argument(input, start, end)));
+        parser.register("drink", CommandParser.Argument.REQUIRED, "Drink what?", (input, start, end) ->
+                handlePotionConsumption(CommandParser.argument(input, start, end)));
+        parser.register("take", CommandParser.Argument.REQUIRED, "Take what?", (input, start, end) ->
+                handleItemTake(CommandParser.argument(input, start, end)));
+        parser.register("drop", CommandParser.Argument.REQUIRED, "Drop what?", (input, start, end) ->
+                handleItemDrop(CommandParser.argument(input, start, end)));
+        parser.register("equip", CommandParser.Argument.REQUIRED, "Equip what?", (input, start, end) ->
+                handleEquipWeapon(CommandParser.argument(input, start, end)));
+        parser.register("travel", CommandParser.Argument.REQUIRED, "Travel where?", (input, start, end) ->
+                handleTravel(CommandParser.argument(input, start, end)));
+        parser.register("attack", CommandParser.Argument.OPTIONAL, null, (input, start, end) ->
+                handleAttack(CommandParser.argument(input, start, end)));
+        parser.register("save", CommandParser.Argument.OPTIONAL, null, (input, start, end) ->
+                saveGame(CommandParser.argument(input, start, end)));
+        parser.register("load", CommandParser.Argument.OPTIONAL, null, (input, start, end) ->
+                loadGame(CommandParser.argument(input, start, end)));
+        parser.register("inventory", CommandParser.Argument.NONE, null, (input, start, end) -> player.displayInventory());
+        parser.register("exit", CommandParser.Argument.NONE, null, (input, start, end) -> {
+            ui.showMessage("Exiting the game.");
+            shutdown(); // Close SoundManager when exiting the game
+            ui.exitGame(); // Let the frontend close the application
+        });
+        return parser;
+    }
+
     // Process user commands
     public void processCommand(String command) {
-        command = command.trim().toLowerCase(); // Normalize input
-
         // Clear the output area before processing the command
         ui.clearOutput(); // Clear previous text/output
 
-        // Command processing
-        switch (command) {
-            case String cmd when cmd.startsWith("go "): // Check for movement commands
-                handleMovement(command);
-                break;
-            case "look": // Command to look around
-                lookAround(); // Describe the current room and show items
-                break;
-            case "help": // Command to show help
-                ui.showHelp(); // Display help instructions
-                break;
-            case "unlock": // Command to unlock a door
-                unlockDoor();// Attempt to unlock the door
-                break;
-            case "show map": // Command to show the map
-                showMap(); // Show the map when the user types 'show map'
-                break;
-            case "health": // Command to show player's health
-                showHealth(); // Show the player's health
-                break;
-            case String cmd when cmd.startsWith("eat "): // Eat food
-                handleFoodConsumption(command);
-                break;
-            case String cmd when cmd.startsWith("drink "): // Drink potion
-                handlePotionConsumption(command);
-                break;
-            case String cmd when cmd.startsWith("take "): // Take an item
-                handleItemTake(command);
-                break;
-            case String cmd when cmd.startsWith("drop "): // Drop an item
-                handleItemDrop(command);
-                break;
-            case String cmd when cmd.startsWith("equip "): // Equip a weapon
-                handleEquipWeapon(command);
-                break;
-            case String cmd when cmd.startsWith("attack"): // Command to attack
-                String enemyName = command.substring(7).trim(); // Extract enemy name
-                handleAttack(enemyName);
-                break;
-            case "inventory": // Command to show inventory
-                player.displayInventory(); // Show the player's inventory
-                break;
-            case "exit": // Command to exit the game
-                ui.showMessage("Exiting the game.");
-                soundManager.close(); // Close SoundManager when exiting the game
-                System.exit(0); // Exit the application
-                break;
-            default: // Handle unknown commands
-                ui.showMessage("Invalid command.");
-                break;
+        if (!parser.dispatch(command)) {
+            ui.showMessage("Invalid command."); // Handle unknown commands
+        } else if (recorder != null) {
+            recorder.record(command); // After the command has run, so its checkpoints include it
+        }
+    }
+
+    // Hash of everything commands can change: the player, the rooms that differ from the world file,
+    // visited rooms and doors. Equal games give equal hashes in any run, see CommandReplay.
+    public long stateHash() {
+        StateHash hash = new StateHash();
+        hash.add(player.getHealth()).add(player.getCurrentRoom().getId());
+        hash.add(player.getInventory().size());
+        for (Item item : player.getInventory()) {
+            hashItem(hash, item);
+        }
+        hash.add(player.getEquippedWeapon() != null ? player.getEquippedWeapon().getShortName() : null);
+        hash.add(gameMap.getVisitedRooms()).add(gameMap.getChangedLocks());
+        for (Room room : gameMap.getChangedRooms()) {
+            hash.add(room.getId()).add(room.getItems().size());
+            for (Item item : room.getItems()) {
+                hashItem(hash, item);
+            }
+            hash.add(room.getEnemies().size());
+            for (Enemy enemy : room.getEnemies()) {
+                hash.add(enemy.getName()).add(enemy.getHealth());
+            }
         }
+        return hash.value();
+    }
+
+    private static void hashItem(StateHash hash, Item item) {
+        hash.add(item.getShortName()).add(item instanceof RangedWeapon ranged ? ranged.getAmmo() : -1);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Random numbers for game rules; always draw from this so recorded games replay the same
+    public SplittableRandom getRandom() {
+        return random;
     }
 
 
@@ -180,40 +232,73 @@ public class GameController {
         }
     }
 
-    // Handle game over scenario
-    private void handleGameOver() {
-        ui.showMessage("You have died - GAME OVER."); // Show death message
+    // Save the game to a slot, "quicksave" unless the player names one
+    private void saveGame(String slotName) {
+        if (saves == null) {
+            ui.showMessage("Saving is not available in this game.");
+            return;
+        }
+        String slot = slotName.isEmpty() ? SaveGame.DEFAULT_SLOT : slotName.toLowerCase(Locale.ROOT);
+        if (!SaveGame.isValidSlot(slot)) {
+            ui.showMessage("Save names may only use letters, digits, - and _.");
+            return;
+        }
+        try {
+            SaveGame.Result result = saves.save(slot, player, gameMap);
+            ui.showMessage("Game saved as " + slot + ".");
+            GameLog.info(GameLog.Category.GAME, "Saved {}: {}", slot, result);
+        } catch (IOException e) {
+            ui.showMessage("The game could not be saved.");
+            GameLog.warn(GameLog.Category.GAME, "Could not save {}: {}", slot, e);
+        }
+    }
 
-        // Use a new thread to wait for a while before closing the game
-        new Thread(() -> {
-            try {
-                Thread.sleep(3000); // Sleep for 3000 milliseconds (3 seconds)
-            } catch (InterruptedException e) {
-                e.printStackTrace(); // Handle interruption
-            }
-            SwingUtilities.invokeLater(this::closeGameAndStartNewView); // Close the game on the EDT
-        }).start();
+    // Continue from a saved game; the current game is left as it is if the save cannot be read
+    private void loadGame(String slotName) {
+        if (saves == null) {
+            ui.showMessage("Loading is not available in this game.");
+            return;
+        }
+        String slot = slotName.isEmpty() ? SaveGame.DEFAULT_SLOT : slotName.toLowerCase(Locale.ROOT);
+        if (!SaveGame.isValidSlot(slot)) {
+            ui.showMessage("There is no saved game called " + slotName + ".");
+            return;
+        }
+        try {
+            SaveGame.Result result = saves.load(slot, player, gameMap);
+            GameLog.info(GameLog.Category.GAME, "Loaded {}: {}", slot, result);
+        } catch (NoSuchFileException e) {
+            ui.showMessage("There is no saved game called " + slot + ".");
+            return;
+        } catch (IOException e) {
+            ui.showMessage("The saved game " + slot + " could not be loaded.");
+            GameLog.warn(GameLog.Category.GAME, "Could not load {}: {}", slot, e);
+            return;
+        }
+        updateCurrentEnemy();
+        ui.showMessage("Game loaded from " + slot + ".");
+        ui.displayRoomDescription(player.getCurrentRoom());
+        ui.showHealth(player.getHealth(), player.getMaxHealth());
     }
 
-    // Method to close the current game and start the StartView
-    private void closeGameAndStartNewView() {
-        soundManager.close(); // Stop any sounds
-        // Assuming StartView has a static method to initialize and show it
-        // Launch StartView
-        SwingUtilities.invokeLater(StartView::start);
+    // Handle game over scenario
+    private void handleGameOver() {
+        ui.showMessage("You have died - GAME OVER."); // Show death message
+        ui.gameOver(); // Let the frontend decide how to end the game
     }
 
     // Handle player equipping a weapon
-    public void handleEquipWeapon(String command) {
-        String weaponName = command.substring(6).trim(); // Extract the weapon name
+    public void handleEquipWeapon(String weaponName) {
         if (!weaponName.isEmpty()) {
-            Weapon weapon = (Weapon) player.findItemInInventory(weaponName);
-            if (weapon != null) {
+            Item item = player.findItemInInventory(weaponName);
+            if (item instanceof Weapon weapon) {
                 if (player.equipWeapon(weapon)) {
                     ui.showMessage("You have equipped " + weapon.getLongName() + ".");
                 } else {
                     ui.showMessage("You don't have that weapon.");
                 }
+            } else if (item != null) {
+                ui.showMessage("You can't equip " + item.getLongName() + ".");
             } else {
                 ui.showMessage("You don't have that weapon.");
             }
@@ -223,19 +308,12 @@ public class GameController {
     }
 
     // Handle player consuming food
-    void handleFoodConsumption(String command) {
-        // Ensure the command is at least 5 characters long to avoid IndexOutOfBoundsException
-        if (command.length() < 5) {
-            ui.showMessage("Eat what?");
-            return;
-        }
-
-        String foodName = command.substring(4).trim(); // Extract the food name
+    void handleFoodConsumption(String foodName) {
         if (!foodName.isEmpty()) {
             // Attempt to consume the food using the player's method
             if (player.consumeFood(foodName)) {
                 // If the food was successfully consumed, print the consumption message
-                System.out.println("You consumed " + foodName + "."); // Confirmation message for console
+                GameLog.debug(GameLog.Category.GAME, "You consumed {}.", foodName); // Confirmation message for the log
             }
             // No need to show a message here if the food is not found; it will be handled in consumeFood
         } else {
@@ -245,19 +323,12 @@ public class GameController {
 
 
     // Handle player consuming a potion
-    void handlePotionConsumption(String command) {
-        // Ensure the command is at least 7 characters long to avoid IndexOutOfBoundsException
-        if (command.length() < 7) {
-            ui.showMessage("Drink what?");
-            return;
-        }
-
-        String potionName = command.substring(6).trim(); // Extract the potion name
+    void handlePotionConsumption(String potionName) {
         if (!potionName.isEmpty()) {
             // Attempt to consume the potion using the player's method
             if (player.consumePotion(potionName)) {
                 // If the potion was successfully consumed, print the consumption message
-                System.out.println("You consumed " + potionName + "."); // Confirmation message for console
+                GameLog.debug(GameLog.Category.GAME, "You consumed {}.", potionName); // Confirmation message for the log
             } else {
                 // This message will already be printed in consumePotion if the potion is not found
                 // ui.showMessage("You don't have that potion item."); // No need for this line
@@ -274,41 +345,65 @@ public class GameController {
     }
 
     // Handle player movement
-    private void handleMovement(String command) {
-        String direction = command.substring(3).trim(); // Extract direction
+    private void handleMovement(String direction) {
         if (player.canMove(direction)) { // Check if movement is possible
-            new Thread(() -> {
-                LoadingScreen loadingScreen = new LoadingScreen();
-                try {
-                    loadingScreen.displayLoading(); // Display loading animation
-                    boolean moved = player.move(direction); // Move player
-                    SwingUtilities.invokeLater(() -> {
-                        if (moved) {
-                            ui.displayRoomDescription(player.getCurrentRoom()); // Display new room description
-                            ui.showHealth(player.getHealth(), player.getMaxHealth()); // Update health display
-                            updateCurrentEnemy(); // Update current enemy after moving
-                            soundManager.playSoundEffect("move"); // Play move sound effect
-                        } else {
-                            ui.showMessage("You cannot go that way.");
-                        }
-                    });
-                } catch (InterruptedException | IOException e) {
-                    System.err.println("Loading error: " + e.getMessage());
+            ui.playTransition(() -> {
+                boolean moved = player.move(direction); // Move player
+                if (moved) {
+                    ui.displayRoomDescription(player.getCurrentRoom()); // Display new room description
+                    ui.showHealth(player.getHealth(), player.getMaxHealth()); // Update health display
+                    updateCurrentEnemy(); // Update current enemy after moving
+                    gameMap.evictIdleRooms(player.getCurrentRoom()); // Let unchanged rooms we left behind go
+                } else {
+                    ui.showMessage("You cannot go that way.");
                 }
-            }).start();
+            });
         } else {
             ui.showMessage("You cannot go that way.");
         }
     }
 
+    // Walk to a named room along the shortest open route, reporting every step
+    private void handleTravel(String roomName) {
+        int destination = gameMap.getWorld().findRoom(roomName);
+        int start = player.getCurrentRoom().getId();
+        if (destination < 0 || start < 0) {
+            ui.showMessage("There is no room called " + roomName + ".");
+            return;
+        }
+        if (start == destination) {
+            ui.showMessage("You are already there.");
+            return;
+        }
+        Router.Session routes = gameMap.getRoutes();
+        if (routes.nextDirection(start, destination) < 0) {
+            ui.showMessage("You know of no open way to " + roomName + ".");
+            return;
+        }
+        ui.playTransition(() -> {
+            while (player.getCurrentRoom().getId() != destination) {
+                int direction = routes.nextDirection(player.getCurrentRoom().getId(), destination);
+                String directionName = direction < 0 ? "" : RoomGraph.directionName(direction);
+                if (direction < 0 || !player.canMove(directionName)) {
+                    ui.showMessage("You stop in " + player.getCurrentRoom().getName() + "."); // Enemies block the way
+                    break;
+                }
+                player.move(directionName); // Reports the step
+                gameMap.evictIdleRooms(player.getCurrentRoom());
+            }
+            ui.displayRoomDescription(player.getCurrentRoom());
+            ui.showHealth(player.getHealth(), player.getMaxHealth());
+            updateCurrentEnemy();
+        });
+    }
 
     // Handle taking an item
-    private void handleItemTake(String command) {
-        String itemToTake = command.substring(5).trim(); // Extract the item name
+    private void handleItemTake(String itemToTake) {
         if (!itemToTake.isEmpty()) {
             Item item = player.getCurrentRoom().findItem(itemToTake); // Find the item in the room
             if (item != null && player.takeItem(item.getShortName())) { // Use short name for taking
                 ui.showItemPickedUp(item.getLongName()); // Pass the long name of the item to showItemPickedUp
+                events.publish(new GameEvent.ItemTaken(item.getShortName(), player.getCurrentRoom().getId()));
             } else {
                 ui.showMessage("Item not found or can't be picked up."); // Handle failure
             }
@@ -318,8 +413,7 @@ public class GameController {
     }
 
     // Handle dropping an item
-    private void handleItemDrop(String command) {
-        String itemToDrop = command.substring(5).trim(); // Extract the item name
+    private void handleItemDrop(String itemToDrop) {
         if (!itemToDrop.isEmpty()) {
             Item item = player.findItemInInventory(itemToDrop); // Find the item in the player's inventory
             if (item != null && player.dropItem(item.getShortName())) { // Use short name for dropping
@@ -336,8 +430,7 @@ public class GameController {
     private void lookAround() {
         Room currentRoom = player.getCurrentRoom(); // Get the current room
         ui.displayRoomDescription(currentRoom); // Show the room description
-        System.out.println("Attempting to play 'look' sound effect..."); // Debug line
-        soundManager.playSoundEffect("look"); // Play sound when looking around
+        playSound("look"); // Play sound when looking around
         ui.showRoomItemsAndEnemies(currentRoom); // Call the UI method to display items and enemies
     }
 
@@ -347,14 +440,16 @@ public class GameController {
         Room currentRoom = player.getCurrentRoom();
 
         // Check if the player has the magic key
-        if (player.hasItem("Magic Key")) {
-            if (currentRoom.isEastLocked()) {
-                currentRoom.unlockEast();
-                ui.showMessage("The door to the east is now unlocked.");
-                soundManager.playSoundEffect("unlock");
-            } else {
-                ui.showMessage("There is no locked door here.");
+        if (player.hasItem("Magic Key")) { // hasItem matches short names, ignoring case
+            for (int direction = 0; direction < 4; direction++) {
+                if (currentRoom.isLocked(direction)) {
+                    currentRoom.unlock(direction);
+                    ui.showMessage("The door to the " + RoomGraph.directionName(direction) + " is now unlocked.");
+                    events.publish(new GameEvent.DoorUnlocked(currentRoom.getId(), direction));
+                    return;
+                }
             }
+            ui.showMessage("There is no locked door here.");
         } else {
             ui.showMessage("You need a Magic Key to unlock this door.");
         }
@@ -408,10 +503,18 @@ public class GameController {
 
 
     // New methods for UserInterface to avoid errors
+    public Player getPlayer() {
+        return player;
+    }
+
     public Room getCurrentRoom() {
         return player.getCurrentRoom();
     }
 
+    public Map getMap() {
+        return gameMap;
+    }
+
     public List<Item> getPlayerInventory() {
         return player.getInventory(); // Return the player's inventory
     }
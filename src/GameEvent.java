@@ -0,0 +1,21 @@
+// Something that happened in the game, published on the game's GameEventBus after the game state
+// has changed. Rooms are room ids and directions RoomGraph directions.
+public sealed interface GameEvent {
+
+    // The player walked from one room into the next
+    record Moved(int fromRoom, int toRoom, int direction) implements GameEvent {
+    }
+
+    // The player hit an enemy; damageTaken is the counter-attack, 0 if the enemy died first
+    record Attacked(String enemyName, int damageDealt, int damageTaken, int playerHealth) implements GameEvent {
+    }
+
+    record EnemyDefeated(String enemyName, int room) implements GameEvent {
+    }
+
+    record ItemTaken(String itemName, int room) implements GameEvent {
+    }
+
+    record DoorUnlocked(int room, int direction) implements GameEvent {
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Hands game events to the parts of the program that react to them, without making the game wait.
+//
+// Every subscriber has its own bounded queue and its own delivery thread, so a slow subscriber (an
+// audio line being opened, a Swing relayout) only holds up itself. Publishing never blocks: when a
+// subscriber's queue is full the event is dropped for that subscriber and counted, as GameLog does
+// with messages. Each subscriber sees the events it gets in the order they were published. With no
+// subscribers, publishing costs next to nothing, so headless sessions do not need to care.
+public final class GameEventBus {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final long IDLE_PARK_NANOS = 50_000_000L; // Longest a delivery thread sleeps without being woken
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public Subscription subscribe(String name, Consumer<? super GameEvent> subscriber) {
+        return subscribe(name, DEFAULT_CAPACITY, subscriber);
+    }
+
+    // Start delivering events to a subscriber on its own thread. The queue holds at least capacity events.
+    public Subscription subscribe(String name, int capacity, Consumer<? super GameEvent> subscriber) {
+        if (closed) {
+            throw new IllegalStateException("The event bus is closed");
+        }
+        Subscription subscription = new Subscription(name, capacity, subscriber);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    // Queue an event for every subscriber; returns at once
+    public void publish(GameEvent event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    // Stop every subscriber once it has been given the events already published. Can be called again.
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+    }
+
+    // One subscriber's queue and delivery thread. The queue is a BoundedRing, as in GameLog.
+    public static final class Subscription {
+        private final String name;
+        private final Consumer<? super GameEvent> subscriber;
+        private final BoundedRing<GameEvent> events;
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile long delivered; // Written by the delivery thread only
+        private volatile boolean closing;
+        private final Thread thread;
+
+        private Subscription(String name, int capacity, Consumer<? super GameEvent> subscriber) {
+            this.name = name;
+            this.subscriber = subscriber;
+            events = new BoundedRing<>(capacity);
+            thread = new Thread(this::deliverLoop, "events-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getDeliveredCount() {
+            return delivered;
+        }
+
+        // Events this subscriber never got because its queue was full
+        public long getDroppedCount() {
+            return dropped.get();
+        }
+
+        private void offer(GameEvent event) {
+            if (!events.offer(event)) {
+                dropped.incrementAndGet(); // Full: the subscriber has not caught up yet
+            }
+        }
+
+        private void deliverLoop() {
+            while (true) {
+                if (deliverAvailable() == 0) {
+                    if (closing) {
+                        break;
+                    }
+                    events.await(IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        // Deliver every published event, and return how many there were
+        private int deliverAvailable() {
+            int count = 0;
+            GameEvent event;
+            while ((event = events.poll()) != null) { // The slot is free again before the subscriber runs
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    GameLog.warn(GameLog.Category.GAME, "Event subscriber {} failed: {}", name, e + " on " + event); // Only two arguments, and only on failure
+                }
+                delivered++;
+                count++;
+            }
+            return count;
+        }
+
+        private void close() {
+            closing = true;
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Diagnostic logging that never blocks the game.
+//
+// Every message has a level and a category, and each category has its own threshold, so a disabled
+// message costs one array read. Enabled messages are put in a BoundedRing with the arguments still
+// unformatted; a background thread formats and writes them. When the buffer is full the message
+// is dropped and counted instead of waiting for the writer.
+//
+// Configure with system properties: -Dadventure.log=<level> sets every category, and
+// -Dadventure.log.<category>=<level> overrides one (e.g. -Dadventure.log.sound=debug). Levels are
+// debug, info, warn, error and off. -Dadventure.log.file=<path> writes to a file instead of stderr.
+public final class GameLog {
+    public enum Level {DEBUG, INFO, WARN, ERROR, OFF}
+
+    public enum Category {GAME, WORLD, SOUND, UI, SERVER}
+
+    private static final int CAPACITY = 8192;
+    private static final long IDLE_PARK_NANOS = 50_000_000L; // Longest the writer sleeps without being woken
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static volatile Level[] thresholds = initialThresholds(); // Replaced, never modified, when changed
+
+    // A message waiting to be written
+    private record Entry(long time, Level level, Category category, String message, Object first, Object second) {
+    }
+
+    private static final BoundedRing<Entry> entries = new BoundedRing<>(CAPACITY);
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static volatile boolean closing;
+    private static final Thread writerThread;
+
+    static {
+        writerThread = new Thread(GameLog::writeLoop, "game-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(GameLog::close, "game-log-shutdown"));
+    }
+
+    private GameLog() {
+    }
+
+    public static boolean isEnabled(Category category, Level level) {
+        return level.compareTo(thresholds[category.ordinal()]) >= 0;
+    }
+
+    // Change the threshold of one category at runtime
+    public static void setLevel(Category category, Level level) {
+        Level[] updated = thresholds.clone();
+        updated[category.ordinal()] = level;
+        thresholds = updated;
+    }
+
+    // Messages lost because the buffer was full
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Messages may use {} for each argument; arguments are only turned into text by the writer thread
+
+    public static void debug(Category category, String message) {
+        log(Level.DEBUG, category, message, null, null);
+    }
+
+    public static void debug(Category category, String message, Object argument) {
+        log(Level.DEBUG, category, message, argument, null);
+    }
+
+    public static void debug(Category category, String message, Object first, Object second) {
+        log(Level.DEBUG, category, message, first, second);
+    }
+
+    public static void info(Category category, String message) {
+        log(Level.INFO, category, message, null, null);
+    }
+
+    public static void info(Category category, String message, Object argument) {
+        log(Level.INFO, category, message, argument, null);
+    }
+
+    public static void info(Category category, String message, Object first, Object second) {
+        log(Level.INFO, category, message, first, second);
+    }
+
+    public static void warn(Category category, String message) {
+        log(Level.WARN, category, message, null, null);
+    }
+
+    public static void warn(Category category, String message, Object argument) {
+        log(Level.WARN, category, message, argument, null);
+    }
+
+    public static void warn(Category category, String message, Object first, Object second) {
+        log(Level.WARN, category, message, first, second);
+    }
+
+    public static void error(Category category, String message) {
+        log(Level.ERROR, category, message, null, null);
+    }
+
+    public static void error(Category category, String message, Object argument) {
+        log(Level.ERROR, category, message, argument, null);
+    }
+
+    public static void error(Category category, String message, Object first, Object second) {
+        log(Level.ERROR, category, message, first, second);
+    }
+
+    private static void log(Level level, Category category, String message, Object first, Object second) {
+        if (!isEnabled(category, level)) {
+            return;
+        }
+        if (!entries.offer(new Entry(System.currentTimeMillis(), level, category, message, first, second))) {
+            dropped.incrementAndGet(); // Full: the writer has not caught up yet
+        }
+    }
+
+    private static void writeLoop() {
+        Writer out = openOutput();
+        StringBuilder line = new StringBuilder(128);
+        while (true) {
+            int written = writeAvailable(out, line);
+            if (written == 0) {
+                if (closing) {
+                    break;
+                }
+                try {
+                    out.flush(); // Only flush once the buffer is empty, so bursts are written in one go
+                } catch (IOException e) {
+                    // Nothing sensible to report a logging failure to
+                }
+                entries.await(IDLE_PARK_NANOS);
+            }
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            // Shutting down anyway
+        }
+    }
+
+    // Write out every published message, and return how many there were
+    private static int writeAvailable(Writer out, StringBuilder line) {
+        int written = 0;
+        Entry entry;
+        while ((entry = entries.poll()) != null) {
+            line.setLength(0);
+            line.append(TIME.format(Instant.ofEpochMilli(entry.time()))).append(' ');
+            appendPadded(line, entry.level().name(), 6);
+            appendPadded(line, entry.category().name().toLowerCase(Locale.ROOT), 7);
+            format(line, entry.message(), entry.first(), entry.second());
+            line.append(System.lineSeparator());
+            try {
+                out.append(line);
+            } catch (IOException e) {
+                // Keep draining so producers are never stuck behind a broken output
+            }
+            written++;
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            try {
+                out.append("(").append(Long.toString(lost)).append(" log messages dropped)").append(System.lineSeparator());
+            } catch (IOException e) {
+                // As above
+            }
+        }
+        return written;
+    }
+
+    private static void appendPadded(StringBuilder line, String text, int width) {
+        line.append(text);
+        for (int i = text.length(); i < width; i++) {
+            line.append(' ');
+        }
+    }
+
+    // Replace each {} with the next argument
+    private static void format(StringBuilder line, String message, Object first, Object second) {
+        Object[] arguments = {first, second};
+        int argument = 0, from = 0;
+        int at;
+        while (argument < 2 && (at = message.indexOf("{}", from)) >= 0) {
+            line.append(message, from, at).append(text(arguments[argument++]));
+            from = at + 2;
+        }
+        line.append(message, from, message.length());
+    }
+
+    private static String text(Object argument) {
+        if (argument instanceof Throwable) {
+            Throwable throwable = (Throwable) argument;
+            return throwable.getMessage() != null ? throwable.getMessage() : throwable.toString();
+        }
+        return String.valueOf(argument);
+    }
+
+    private static Writer openOutput() {
+        String file = System.getProperty("adventure.log.file");
+        if (file != null) {
+            try {
+                return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println("Could not open log file " + file + ": " + e.getMessage());
+            }
+        }
+        return new BufferedWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8));
+    }
+
+    // Write out what is still buffered, waiting at most a second
+    private static void close() {
+        closing = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Level[] initialThresholds() {
+        Level all = parseLevel(System.getProperty("adventure.log"), Level.INFO);
+        Level[] result = new Level[Category.values().length];
+        for (Category category : Category.values()) {
+            String name = category.name().toLowerCase(Locale.ROOT);
+            result[category.ordinal()] = parseLevel(System.getProperty("adventure.log." + name), all);
+        }
+        return result;
+    }
+
+    private static Level parseLevel(String value, Level fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level: " + value);
+            return fallback;
+        }
+    }
+}
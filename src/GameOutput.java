@@ -0,0 +1,141 @@
+import java.util.List;
+
+// Everything the game engine needs to tell the player goes through this interface.
+// The Swing UserInterface is one implementation, GameSession collects output headlessly.
+public interface GameOutput {
+
+    // Show a line of text to the player
+    void showMessage(String message);
+
+    // Clear the output area before a new command is shown
+    void clearOutput();
+
+    // Run the room transition and then continue with the move (Swing shows a loading screen first)
+    default void playTransition(Runnable onFinished) {
+        onFinished.run(); // Headless clients continue straight away
+    }
+
+    // Called when the player has died
+    default void gameOver() {
+        // Nothing to do for headless clients
+    }
+
+    // Called when the player types 'exit'
+    default void exitGame() {
+        // Nothing to do for headless clients
+    }
+
+    // Method to show item picked up message
+    default void showItemPickedUp(String itemLongName) {
+        showMessage("You picked up: " + itemLongName + "."); // Notify the user of item pickup
+    }
+
+    // Method to show item dropped message
+    default void showItemDropped(String itemLongName) {
+        showMessage("You dropped the " + itemLongName + "."); // Notify the user of item drop
+    }
+
+    // Method to display room descriptions in an overlay style
+    default void displayRoomDescription(Room room) {
+        String description = "You are in " + room.getName() + "\n" + room.getDescription(); // Create room description
+        showMessage(description); // Show the description in the message area
+    }
+
+    // Method to show items and enemies in the current room
+    default void showRoomItemsAndEnemies(Room room) {
+        StringBuilder itemsAndEnemiesMessage = new StringBuilder();
+        itemsAndEnemiesMessage.append("Items in this room:\n");
+
+        // Show items
+        if (room.getItems().isEmpty()) {
+            itemsAndEnemiesMessage.append("There are no items in this room.\n");
+        } else {
+            for (Item item : room.getItems()) {
+                itemsAndEnemiesMessage.append("- ").append(item.getLongName()).append(" (").append(item.getShortName()).append(")\n");
+            }
+        }
+
+        // Show enemies
+        List<Enemy> enemies = room.getEnemies();
+        itemsAndEnemiesMessage.append("Enemies in this room:\n");
+        if (enemies.isEmpty()) {
+            itemsAndEnemiesMessage.append("There are no enemies in this room.\n");
+        } else {
+            for (Enemy enemy : enemies) {
+                itemsAndEnemiesMessage.append("- ").append(enemy.getName()).append("\n");
+            }
+        }
+
+        showMessage(itemsAndEnemiesMessage.toString()); // Show message with items and enemies
+    }
+
+    // Method to display the player's health
+    default void showHealth(int currentHealth, int maxHealth) {
+        String healthMessage = "Your health: " + currentHealth + "/" + maxHealth;
+
+        String healthStatus;
+        // Determine health status message
+        if (currentHealth >= 75) {
+            healthStatus = "You are in great shape!";
+        } else if (currentHealth >= 50) {
+            healthStatus = "You are feeling fine.";
+        } else if (currentHealth >= 25) {
+            healthStatus = "You are hurt, be careful!";
+        } else {
+            healthStatus = "You are in critical condition! Find something to heal.";
+        }
+
+        // Show both health message and status
+        showMessage(healthMessage); // Display the health message
+        showMessage(healthStatus); // Display the health status
+    }
+
+    // Method to show help instructions to the player
+    default void showHelp() {
+        // Create a StringBuilder to build the help message with a grid layout
+        StringBuilder helpMessage = new StringBuilder("Available commands:\n\n");
+
+        // Define the commands in an array
+        String[][] commands = {
+                {"Move Commands:", "Status commands:", "Action command:"},
+                {"go north", "health", "inventory", "drink [potion]"},
+                {"go west", "look", "take [item]", "attack[enemy name]"},
+                {"go east", "show map", "drop [item]", "exit" + ": close the game"},
+                {"go south", "unlock", "eat [food]"},
+                {"travel [room]", "save [name]", "load [name]"},
+        };
+
+        // Create a formatted string with columns
+        for (String[] row : commands) {
+            for (String command : row) {
+                if (!command.isEmpty()) {
+                    helpMessage.append(String.format("%-20s", command)); // Format each command
+                } else {
+                    helpMessage.append(String.format("%-20s", " ")); // Fill empty spaces
+                }
+            }
+            helpMessage.append("\n"); // New line after each row
+        }
+
+        // Show the formatted help message
+        showMessage(helpMessage.toString());
+    }
+
+    // Method to display the map of the current room and its connections
+    default void showMap(String currentRoomName, String eastRoomName, String southRoomName, String westRoomName, String northRoomName, String enemies) {
+        showMessage(formatMap(currentRoomName, eastRoomName, southRoomName, westRoomName, northRoomName, enemies));
+    }
+
+    // Build the text shown for the 'show map' command
+    static String formatMap(String currentRoomName, String eastRoomName, String southRoomName, String westRoomName, String northRoomName, String enemies) {
+        StringBuilder mapDisplay = new StringBuilder();
+        mapDisplay.append("Current Room: ").append(currentRoomName).append("\n");
+        mapDisplay.append("Adjacent Rooms:\n");
+        mapDisplay.append("North: ").append(northRoomName).append("\n");
+        mapDisplay.append("South: ").append(southRoomName).append("\n");
+        mapDisplay.append("West: ").append(westRoomName).append("\n");
+        mapDisplay.append("East: ").append(eastRoomName).append("\n");
+        mapDisplay.append("Enemies in the room: ").append(enemies).append("\n"); // Display enemies
+        return mapDisplay.toString();
+    }
+}
@@ -0,0 +1,280 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Line based text server (works with telnet or nc). Every connection gets its own GameSession
+// and its own virtual thread, so thousands of players can be served from one process.
+public class GameServer implements AutoCloseable {
+    private static final int MAX_LINE_LENGTH = 512; // Longest command we accept
+    private static final String PROMPT = "> ";
+    private static final long ACCEPT_RETRY_MILLIS = 100; // Pause after a failed accept so a lasting error does not spin
+    private static final String LINE_TOO_LONG = new String("(too long)"); // readLine result, compared by identity
+
+    // Telnet bytes (RFC 854)
+    private static final int IAC = 255;  // "Interpret as command", starts every telnet command
+    private static final int SB = 250;   // Subnegotiation begins, runs until IAC SE
+    private static final int SE = 240;
+    private static final int WILL = 251; // WILL, WONT, DO and DONT (251-254) are followed by one option byte
+    private static final int DONT = 254;
+
+    private final ServerSocketChannel serverChannel;            // Listening socket
+    private final Set<SocketChannel> clients = ConcurrentHashMap.newKeySet(); // Open connections
+    private final AtomicLong connectionsAccepted = new AtomicLong();
+    private final AtomicLong commandsProcessed = new AtomicLong();
+    private Thread acceptThread;
+    private volatile boolean running;
+
+    public GameServer(InetSocketAddress address) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address, 1024); // Large backlog so connection bursts are not refused
+    }
+
+    // Start accepting players on a platform thread, each player is handled on a virtual thread
+    public void start() {
+        running = true;
+        acceptThread = new Thread(this::acceptLoop, "game-server-accept");
+        acceptThread.start();
+        System.out.println("Game server listening on " + getAddress());
+    }
+
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public int getActiveConnections() {
+        return clients.size();
+    }
+
+    public long getConnectionsAccepted() {
+        return connectionsAccepted.get();
+    }
+
+    public long getCommandsProcessed() {
+        return commandsProcessed.get();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                SocketChannel client = serverChannel.accept();
+                client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                connectionsAccepted.incrementAndGet();
+                clients.add(client);
+                Thread.ofVirtual().name("player-", connectionsAccepted.get()).start(() -> serve(client));
+            } catch (ClosedChannelException e) {
+                break; // Server was closed
+            } catch (IOException e) {
+                // Errors such as running out of file descriptors do not clear at once, so wait before retrying
+                GameLog.warn(GameLog.Category.SERVER, "Error accepting connection: {}", e.getMessage());
+                try {
+                    Thread.sleep(ACCEPT_RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+    }
+
+    // Run one player's game until they quit or disconnect
+    private void serve(SocketChannel client) {
+        LineReader in = new LineReader(client);
+        StringBuilder response = new StringBuilder();
+        try (client; GameSession session = new GameSession()) {
+            session.getController().setSaveDirectory(null); // Connections are anonymous, so nobody could tell whose save is whose
+            appendEvents(response, session.start());
+            send(client, response);
+
+            String line;
+            while (!session.isFinished() && (line = in.readLine()) != null) {
+                if (line == LINE_TOO_LONG) {
+                    response.append("That line is too long, commands can be up to " + MAX_LINE_LENGTH + " bytes.\n").append(PROMPT);
+                    send(client, response);
+                    continue;
+                }
+                if (line.isBlank()) {
+                    response.append(PROMPT);
+                    send(client, response);
+                    continue;
+                }
+                try {
+                    appendEvents(response, session.submit(line));
+                } catch (RuntimeException e) {
+                    // A bug in one command must not end the player's connection
+                    GameLog.warn(GameLog.Category.SERVER, "Command failed: {}", e + " on " + line);
+                    response.append("Something went wrong with that command.\n").append(PROMPT);
+                }
+                commandsProcessed.incrementAndGet();
+                send(client, response);
+            }
+        } catch (IOException e) {
+            // The player disconnected, nothing more to do
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    // Format the session output as text lines followed by a prompt
+    private void appendEvents(StringBuilder response, List<OutputEvent> events) {
+        for (OutputEvent event : events) {
+            switch (event.type()) {
+                case MESSAGE -> response.append(event.text()).append('\n');
+                case GAME_OVER -> response.append("Thanks for playing.\n");
+                case EXIT -> response.append("Goodbye.\n");
+                case CLEAR -> { } // Nothing to clear on a text connection
+            }
+        }
+        response.append(PROMPT);
+    }
+
+    private void send(SocketChannel client, StringBuilder response) throws IOException {
+        ByteBuffer out = StandardCharsets.UTF_8.encode(response.toString().replace("\n", "\r\n")); // Telnet wants CRLF
+        response.setLength(0);
+        while (out.hasRemaining()) {
+            client.write(out);
+        }
+    }
+
+    // Splits one connection's input into command lines and removes telnet commands. The telnet state
+    // is kept between reads, so a command split across two packets is still recognised.
+    private static final class LineReader {
+        private static final int DATA = 0, COMMAND = 1, OPTION = 2, SUBNEGOTIATION = 3, SUBNEGOTIATION_IAC = 4;
+
+        private final SocketChannel client;
+        private final ByteBuffer in = ByteBuffer.allocate(1024);
+        private final byte[] line = new byte[MAX_LINE_LENGTH];
+        private int length;
+        private boolean tooLong;      // The line went past MAX_LINE_LENGTH; the rest of it is skipped
+        private boolean afterReturn;  // A CR just ended a line, so an LF or NUL right after it belongs to it
+        private int telnet = DATA;
+
+        private LineReader(SocketChannel client) {
+            this.client = client;
+            in.flip(); // Nothing read yet
+        }
+
+        // The next line, LINE_TOO_LONG for a line that did not fit, or null once the client disconnects
+        private String readLine() throws IOException {
+            while (true) {
+                while (in.hasRemaining()) {
+                    String line = accept(in.get() & 0xff);
+                    if (line != null) {
+                        return line;
+                    }
+                }
+                in.clear();
+                int read = client.read(in);
+                in.flip();
+                if (read < 0) {
+                    return null; // Client closed the connection
+                }
+            }
+        }
+
+        // Take one byte and return the line it finishes, if any
+        private String accept(int b) {
+            switch (telnet) {
+                case COMMAND -> {
+                    if (b == IAC) {
+                        telnet = DATA;
+                        return data(b); // IAC IAC is a literal 255
+                    }
+                    telnet = b == SB ? SUBNEGOTIATION : b >= WILL && b <= DONT ? OPTION : DATA;
+                    return null;
+                }
+                case OPTION -> {
+                    telnet = DATA;
+                    return null;
+                }
+                case SUBNEGOTIATION -> {
+                    if (b == IAC) {
+                        telnet = SUBNEGOTIATION_IAC;
+                    }
+                    return null; // Window size, terminal type and the like are not for the game
+                }
+                case SUBNEGOTIATION_IAC -> {
+                    telnet = b == SE ? DATA : SUBNEGOTIATION;
+                    return null;
+                }
+                default -> {
+                    if (b == IAC) {
+                        telnet = COMMAND;
+                        return null;
+                    }
+                    return data(b);
+                }
+            }
+        }
+
+        private String data(int b) {
+            boolean afterReturn = this.afterReturn;
+            this.afterReturn = false;
+            if (b == '\r' || b == '\n') {
+                if (b == '\n' && afterReturn) {
+                    return null; // CR LF, the line already ended at the CR
+                }
+                this.afterReturn = b == '\r';
+                return endLine();
+            }
+            if (b == 0) {
+                return null; // CR NUL is how telnet sends a bare return
+            }
+            if (length < line.length) {
+                line[length++] = (byte) b;
+            } else {
+                tooLong = true;
+            }
+            return null;
+        }
+
+        private String endLine() {
+            String result = tooLong ? LINE_TOO_LONG : new String(line, 0, length, StandardCharsets.UTF_8);
+            length = 0;
+            tooLong = false;
+            return result;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverChannel.close();
+        for (SocketChannel client : clients) {
+            client.close();
+        }
+    }
+
+    // Start a server: java GameServer [port]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        GameServer server = new GameServer(new InetSocketAddress(port));
+        server.start();
+
+        // Print connection and command rates every 10 seconds
+        long lastCommands = 0;
+        long lastConnections = 0;
+        while (true) {
+            Thread.sleep(10_000);
+            long commands = server.getCommandsProcessed();
+            long connections = server.getConnectionsAccepted();
+            System.out.println("Players online: " + server.getActiveConnections()
+                    + ", connections/s: " + (connections - lastConnections) / 10.0
+                    + ", commands/s: " + (commands - lastCommands) / 10.0);
+            lastCommands = commands;
+            lastConnections = connections;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// A headless game: no window, no audio. Commands go in, output events come out.
+// The Swing UserInterface, the text server and automated runs are all clients of the same engine.
+public class GameSession implements GameOutput, AutoCloseable {
+    private final GameController controller; // Game logic for this session
+    private List<OutputEvent> events;        // Output collected for the current command
+    private boolean finished;                // Set when the player dies or exits
+
+    public GameSession() {
+        this(new Map()); // Every session gets its own world
+    }
+
+    public GameSession(Map gameMap) {
+        this.events = new ArrayList<>();
+        this.controller = new GameController(this, gameMap, null); // No sound when headless
+        events.clear(); // Drop anything printed while the player was created
+    }
+
+    // Return the welcome text and the starting room
+    public List<OutputEvent> start() {
+        controller.showWelcome();
+        return drainEvents();
+    }
+
+    // Run one command and return everything it printed
+    public List<OutputEvent> submit(String command) {
+        if (finished) {
+            events.add(new OutputEvent(OutputEvent.Type.MESSAGE, "The game is over."));
+        } else {
+            controller.processCommand(command);
+        }
+        return drainEvents();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public GameController getController() {
+        return controller;
+    }
+
+    // Stop the session's event subscribers
+    @Override
+    public void close() {
+        controller.shutdown();
+    }
+
+    // Hand the collected events to the caller and start a new list
+    private List<OutputEvent> drainEvents() {
+        List<OutputEvent> result = events;
+        events = new ArrayList<>();
+        return result;
+    }
+
+    @Override
+    public void showMessage(String message) {
+        events.add(new OutputEvent(OutputEvent.Type.MESSAGE, message));
+    }
+
+    @Override
+    public void clearOutput() {
+        events.add(new OutputEvent(OutputEvent.Type.CLEAR, null));
+    }
+
+    @Override
+    public void gameOver() {
+        finished = true;
+        events.add(new OutputEvent(OutputEvent.Type.GAME_OVER, null));
+    }
+
+    @Override
+    public void exitGame() {
+        finished = true;
+        events.add(new OutputEvent(OutputEvent.Type.EXIT, null));
+    }
+}
@@ -25,6 +25,17 @@ public class Item {
         return description;
     }
 
+    // Return the object a game session should use for this item.
+    // Plain items never change, so every session can share the same object.
+    public Item instantiate() {
+        return this;
+    }
+
+    // Return the world's item this object was instantiated from
+    public Item getDefinition() {
+        return this;
+    }
+
     @Override
     public String toString() {
         return longName + " (" + description + ")";
@@ -1,6 +1,11 @@
 import javax.swing.*;
 
 public static void main(String[] args) {
+    for (String arg : args) {
+        if (arg.equals("--fast")) {
+            System.setProperty(StartupProfiler.FAST_PROPERTY, "true"); // Straight to the first prompt
+        }
+    }
     // Use the SwingUtilities to ensure thread safety for GUI creation
     // Simply create an instance of StartView
     // Start view will handle the setup of UI and GameController
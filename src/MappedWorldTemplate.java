@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+
+// A world compiled by WorldCompiler and memory-mapped from disk. Room templates are decoded from the
+// mapped file when a session first needs them and kept in a bounded cache, so a world can be much
+// larger than the heap: rooms that drop out of the cache go back to living only in the file.
+// Only the exit graph, which is a few ints per room, is read into memory when the file is opened.
+public class MappedWorldTemplate extends WorldTemplate {
+    public static final String FILE_EXTENSION = ".wbin";
+    private static final int DEFAULT_CACHE_SIZE = 4096; // Decoded rooms kept in memory
+
+    private final ByteBuffer data;       // The whole mapped file, only read with absolute gets
+    private final int roomCount;
+    private final int stringTableOffset;
+    private final int roomTableOffset;
+    private final int spawnDataOffset;
+    private final int nameIndexOffset;
+    private final LinkedHashMap<Integer, RoomTemplate> cache; // Least recently used rooms are dropped first
+
+    public MappedWorldTemplate(Path path) throws IOException {
+        this(map(path), DEFAULT_CACHE_SIZE);
+    }
+
+    public MappedWorldTemplate(Path path, int cacheSize) throws IOException {
+        this(map(path), cacheSize);
+    }
+
+    private MappedWorldTemplate(ByteBuffer data, int cacheSize) {
+        super(readGraph(data), data.getInt(12), readItems(data));
+        this.data = data;
+        this.roomCount = data.getInt(8);
+        this.stringTableOffset = data.getInt(24);
+        this.roomTableOffset = data.getInt(32);
+        this.spawnDataOffset = data.getInt(36);
+        this.nameIndexOffset = data.getInt(40);
+        this.cache = new LinkedHashMap<>(Math.min(cacheSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(java.util.Map.Entry<Integer, RoomTemplate> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    // Map the file and check that it is a compiled world we understand
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE || channel.size() < WorldCompiler.HEADER_SIZE) {
+                throw new IOException(path + " is not a compiled world file");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt(0) != WorldCompiler.MAGIC || data.getInt(4) != WorldCompiler.VERSION) {
+                throw new IOException(path + " is not a compiled world file or has the wrong version");
+            }
+            return data; // The mapping stays valid after the channel is closed
+        }
+    }
+
+    // Exits and locks of every room, straight from the room table
+    private static RoomGraph readGraph(ByteBuffer data) {
+        int roomCount = data.getInt(8);
+        int roomTable = data.getInt(32);
+        int[] exits = new int[roomCount * 4];
+        BitSet locked = new BitSet();
+        for (int id = 0; id < roomCount; id++) {
+            int record = roomTable + id * WorldCompiler.ROOM_RECORD_SIZE;
+            int locks = data.getInt(record + 24);
+            for (int direction = 0; direction < 4; direction++) {
+                exits[id * 4 + direction] = data.getInt(record + 8 + direction * 4);
+                if ((locks & (1 << direction)) != 0) {
+                    locked.set(id * 4 + direction);
+                }
+            }
+        }
+        return new RoomGraph(roomCount, exits, locked);
+    }
+
+    // Item definitions are small, so they are all decoded up front
+    private static List<Item> readItems(ByteBuffer data) {
+        int stringTable = data.getInt(24);
+        int itemTable = data.getInt(28);
+        int itemCount = data.getInt(20);
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            int record = itemTable + i * WorldCompiler.ITEM_RECORD_SIZE;
+            String shortName = readString(data, stringTable, data.getInt(record + 4));
+            String longName = readString(data, stringTable, data.getInt(record + 8));
+            String description = readString(data, stringTable, data.getInt(record + 12));
+            int value1 = data.getInt(record + 16);
+            int value2 = data.getInt(record + 20);
+            int value3 = data.getInt(record + 24);
+            switch (data.getInt(record)) {
+                case WorldCompiler.KIND_MELEE -> items.add(new MeleeWeapon(shortName, longName, description, value1));
+                case WorldCompiler.KIND_RANGED -> items.add(new RangedWeapon(shortName, longName, description, value1, value2));
+                case WorldCompiler.KIND_FOOD -> items.add(new Food(shortName, longName, description, value1, value2 != 0));
+                case WorldCompiler.KIND_POTION -> items.add(new Potion(shortName, longName, description, value1, value2, value3 != 0));
+                default -> items.add(new Item(shortName, longName, description));
+            }
+        }
+        return items;
+    }
+
+    private static String readString(ByteBuffer data, int stringTable, int id) {
+        int offset = data.getInt(stringTable + id * 4);
+        byte[] bytes = new byte[data.getInt(offset)];
+        data.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public RoomTemplate getRoom(int id) {
+        synchronized (cache) {
+            RoomTemplate room = cache.get(id);
+            if (room == null) {
+                room = decodeRoom(id);
+                cache.put(id, room);
+            }
+            return room;
+        }
+    }
+
+    @Override
+    protected String getRoomName(int id) {
+        return readString(data, stringTableOffset, data.getInt(roomTableOffset + id * WorldCompiler.ROOM_RECORD_SIZE));
+    }
+
+    // Binary search of the name index in the file, so no names are read into memory
+    @Override
+    public int findRoom(String name) {
+        String wanted = name.toLowerCase(Locale.ROOT);
+        int hash = wanted.hashCode(); // Same as WorldCompiler.nameHash
+        int low = 0, high = roomCount; // First record whose hash is not below the one wanted
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (data.getInt(nameIndexOffset + middle * WorldCompiler.NAME_RECORD_SIZE) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        // Records with the same hash are in id order, so with duplicate names the first room wins
+        for (int i = low; i < roomCount; i++) {
+            int record = nameIndexOffset + i * WorldCompiler.NAME_RECORD_SIZE;
+            if (data.getInt(record) != hash) {
+                break;
+            }
+            int id = data.getInt(record + 4);
+            if (getRoomName(id).toLowerCase(Locale.ROOT).equals(wanted)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    // Number of rooms currently decoded in memory
+    public int getCachedRoomCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private RoomTemplate decodeRoom(int id) {
+        if (id < 0 || id >= roomCount) {
+            throw new IndexOutOfBoundsException("No room with id " + id);
+        }
+        int record = roomTableOffset + id * WorldCompiler.ROOM_RECORD_SIZE;
+        String name = readString(data, stringTableOffset, data.getInt(record));
+        String description = readString(data, stringTableOffset, data.getInt(record + 4));
+
+        List<Item> items = List.of();
+        int itemList = data.getInt(record + 28);
+        if (itemList != WorldCompiler.NO_LIST) {
+            int position = spawnDataOffset + itemList;
+            int count = data.getInt(position);
+            items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(getItemDefinitions().get(data.getInt(position + 4 + i * 4)));
+            }
+        }
+
+        List<EnemySpawn> enemies = List.of();
+        int enemyList = data.getInt(record + 32);
+        if (enemyList != WorldCompiler.NO_LIST) {
+            int position = spawnDataOffset + enemyList;
+            int count = data.getInt(position);
+            enemies = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int enemy = position + 4 + i * WorldCompiler.ENEMY_RECORD_SIZE;
+                int weapon = data.getInt(enemy + 16);
+                enemies.add(new EnemySpawn(
+                        readString(data, stringTableOffset, data.getInt(enemy)),
+                        readString(data, stringTableOffset, data.getInt(enemy + 4)),
+                        readString(data, stringTableOffset, data.getInt(enemy + 8)),
+                        data.getInt(enemy + 12),
+                        weapon < 0 ? null : (Weapon) getItemDefinitions().get(weapon)));
+            }
+        }
+
+        return new RoomTemplate(id, name, description, items, enemies);
+    }
+}
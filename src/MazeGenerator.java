@@ -0,0 +1,398 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Generates large maze worlds on a width x height grid of rooms.
+//
+// The grid is cut into square regions that are carved in parallel, each with its own random
+// generator derived from the seed and the region number, so the same seed always gives the same
+// world no matter how many threads do the work. The regions are then joined along a random spanning
+// tree; some of those joining doors are locked, and the Magic Key that opens them lies in the start
+// region. Enemies and items get harder and better the further a room is from the start.
+public class MazeGenerator {
+    private static final int REGION_SIZE = 32;     // Regions are REGION_SIZE x REGION_SIZE rooms
+    private static final int REGIONS_PER_TASK = 4; // Smallest piece of work handed to one fork/join task
+    private static final double LOOP_CHANCE = 0.05; // Extra openings inside a region, so there is more than one way round
+    private static final double LOCK_CHANCE = 0.25; // Chance that a door between two regions is locked
+    private static final int BANDS = 5;             // Difficulty bands, from the start outwards
+
+    private static final int NORTH = RoomGraph.NORTH, SOUTH = RoomGraph.SOUTH, EAST = RoomGraph.EAST, WEST = RoomGraph.WEST;
+    private static final int[] DX = {0, 0, 1, -1};
+    private static final int[] DY = {-1, 1, 0, 0};
+
+    private static final String[] BAND_NAMES = {"Amusement", "Cellar", "Crypt", "Sanctum", "Inferno"};
+    private static final String[][] BAND_DESCRIPTIONS = {
+            {"A bright room with a wooden floor.", "Colourful lights blink along the walls.", "You hear music from far away."},
+            {"Damp walls and a smell of old wine.", "Barrels are stacked up to the ceiling.", "Water drips somewhere in the dark."},
+            {"Stone coffins line the walls.", "A pillar of bones lays beneath you.", "Cobwebs hang from every corner."},
+            {"This room is all white, and you hear a chime.", "Feathers float slowly through the air.", "A soft golden light fills the room."},
+            {"The floor is hot enough to burn.", "Blood splashes cover the walls.", "Flames roar behind iron bars."}
+    };
+
+    private final int width;
+    private final int height;
+    private final long seed;
+    private final int regionsX;
+    private final int regionsY;
+    private final int[] exits;       // north, south, east, west for every room, -1 for no exit
+    private final BitSet locked = new BitSet(); // Locked exits, indexed like exits
+    private final int[] distance;    // Steps from the start room, ignoring locks
+    private final byte[] enemies;    // Index into the band's enemy table + 1, 0 for none
+    private final byte[] loot;       // Index into the band's loot table + 1, 0 for none
+    private final byte[] looks;      // Which description of its band the room gets
+    private int maxDistance;
+
+    // Enemies and loot, shared by every room that uses them
+    private final EnemySpawn[][] bandEnemies;
+    private final Item[][] bandLoot;
+    private final Item magicKey = new Item("Magic Key", "Magic Key", "A universel magic key.");
+
+    private MazeGenerator(int width, int height, long seed) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.regionsX = (width + REGION_SIZE - 1) / REGION_SIZE;
+        this.regionsY = (height + REGION_SIZE - 1) / REGION_SIZE;
+        int rooms = width * height;
+        this.exits = new int[rooms * 4];
+        this.distance = new int[rooms];
+        this.enemies = new byte[rooms];
+        this.loot = new byte[rooms];
+        this.looks = new byte[rooms];
+
+        MeleeWeapon goblinDagger = new MeleeWeapon("goblin dagger", "Goblin Dagger", "A small but sharp dagger.", 8);
+        MeleeWeapon ironSword = new MeleeWeapon("iron sword", "Iron Sword", "A strong iron sword.", 15);
+        MeleeWeapon trollClub = new MeleeWeapon("troll club", "Troll Club", "A massive club made from a tree.", 15);
+        RangedWeapon magicWand = new RangedWeapon("magic wand", "Magic Wand", "A wand that casts powerful spells.", 20, 10);
+        RangedWeapon dragonBow = new RangedWeapon("dragon bow", "Dragon Bow", "A legendary bow made from dragon bones.", 25, 5);
+        MeleeWeapon angelSword = new MeleeWeapon("angel sword", "Angel Sword", "A glowing sword with celestial power.", 30);
+        MeleeWeapon demonScythe = new MeleeWeapon("demon scythe", "Demon Scythe", "A terrifying scythe that deals heavy damage.", 40);
+
+        bandEnemies = new EnemySpawn[][]{
+                {new EnemySpawn("goblin", "Sneaky Goblin", "A small green creature with a cunning smile.", 10, goblinDagger),
+                        new EnemySpawn("skeleton", "Cursed Skeleton", "A bone-chilling skeleton with a sword.", 15, goblinDagger)},
+                {new EnemySpawn("orc", "Orc Warrior", "An orc warrior.", 15, ironSword),
+                        new EnemySpawn("skeleton", "Skeleton Guard", "A skeleton in rusty armour.", 18, ironSword)},
+                {new EnemySpawn("troll", "Brute Troll", "A massive troll with thick skin.", 20, trollClub),
+                        new EnemySpawn("werewolf", "Fierce Werewolf", "A monstrous wolf-like creature.", 30, dragonBow)},
+                {new EnemySpawn("vampire", "Bloodthirsty Vampire", "A pale figure with fangs, lurking in the shadows.", 25, magicWand),
+                        new EnemySpawn("angel", "Guardian Angel", "A majestic being with wings, protecting the innocent.", 35, angelSword)},
+                {new EnemySpawn("dragon", "Ancient Dragon", "A dragon with scales as hard as steel.", 45, dragonBow),
+                        new EnemySpawn("demon", "Lesser Demon", "A demon wreathed in smoke.", 40, demonScythe)}
+        };
+        bandLoot = new Item[][]{
+                {new Food("apple", "Fresh Apple", "A juicy red apple.", 10, false),
+                        new Food("bread", "Loaf of Bread", "A warm loaf of bread.", 15, false),
+                        new MeleeWeapon("wooden sword", "Wooden Sword", "A basic wooden sword.", 5)},
+                {new Food("cheese", "Cheese Wheel", "A wheel of cheese.", 20, false),
+                        new Potion("healing potion", "Healing Potion", "A potion that restores health.", 30, 0, false),
+                        new RangedWeapon("bow", "Wooden Bow", "A bow that can shoot arrows.", 12, 5)},
+                {new Food("steak", "Infernal Steak", "A juicy grilled steak cooked in hellfire.", 25, false),
+                        new Food("mushroom", "Poisonous Mushroom", "A mushroom that looks delicious but is actually poisonous.", 10, true),
+                        ironSword},
+                {new Food("nectar", "Nectar of the Gods", "A sweet liquid that restores a large amount of health.", 40, false),
+                        new Potion("attack_potion", "Attack Boost Potion", "A potion that boosts your attack.", 0, 10, false),
+                        magicWand},
+                {new Food("phoenixFeatherStew", "Phoenix Feather Stew", "A stew that heals and gives temporary invincibility.", 35, false),
+                        dragonBow,
+                        angelSword}
+        };
+    }
+
+    // Generate a maze world using the common fork/join pool
+    public static WorldTemplate generate(int width, int height, long seed) {
+        return generate(width, height, seed, ForkJoinPool.commonPool());
+    }
+
+    // Generate a maze world; the result only depends on the size and the seed, not on the pool
+    public static WorldTemplate generate(int width, int height, long seed, ForkJoinPool pool) {
+        if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Invalid maze size: " + width + "x" + height);
+        }
+        MazeGenerator generator = new MazeGenerator(width, height, seed);
+        int regionCount = generator.regionsX * generator.regionsY;
+        pool.invoke(generator.new RegionTask(0, regionCount, false)); // Carve every region
+        generator.joinRegions();
+        generator.measureDistances();
+        pool.invoke(generator.new RegionTask(0, regionCount, true));  // Place enemies and loot
+        return generator.build();
+    }
+
+    // Carves or fills a range of regions, splitting the range until it is small
+    private class RegionTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final boolean fill;
+
+        RegionTask(int from, int to, boolean fill) {
+            this.from = from;
+            this.to = to;
+            this.fill = fill;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= REGIONS_PER_TASK) {
+                for (int region = from; region < to; region++) {
+                    if (fill) {
+                        fillRegion(region);
+                    } else {
+                        carveRegion(region);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RegionTask(from, middle, fill), new RegionTask(middle, to, fill));
+        }
+    }
+
+    // Random generator for one region and phase, independent of which thread asks for it
+    private SplittableRandom random(long region, long phase) {
+        long h = seed ^ (region * 0x9E3779B97F4A7C15L) ^ (phase * 0xC2B2AE3D27D4EB4FL);
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL; // Spread the bits before seeding
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return new SplittableRandom(h ^ (h >>> 33));
+    }
+
+    // Carve a spanning maze inside one region with an iterative depth-first search
+    private void carveRegion(int region) {
+        int x0 = (region % regionsX) * REGION_SIZE;
+        int y0 = (region / regionsX) * REGION_SIZE;
+        int w = Math.min(REGION_SIZE, width - x0);
+        int h = Math.min(REGION_SIZE, height - y0);
+        SplittableRandom random = random(region, 0);
+
+        for (int y = y0; y < y0 + h; y++) {
+            Arrays.fill(exits, (y * width + x0) * 4, (y * width + x0 + w) * 4, RoomGraph.NO_EXIT);
+        }
+
+        boolean[] seen = new boolean[w * h];
+        int[] stack = new int[w * h];
+        int[] options = new int[4];
+        int top = 0;
+        int first = random.nextInt(w * h);
+        seen[first] = true;
+        stack[top++] = first;
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int cx = cell % w, cy = cell / w;
+            int count = 0;
+            for (int direction = 0; direction < 4; direction++) {
+                int nx = cx + DX[direction], ny = cy + DY[direction];
+                if (nx >= 0 && ny >= 0 && nx < w && ny < h && !seen[ny * w + nx]) {
+                    options[count++] = direction;
+                }
+            }
+            if (count == 0) {
+                top--; // Dead end, go back
+                continue;
+            }
+            int direction = options[random.nextInt(count)];
+            int next = (cy + DY[direction]) * w + cx + DX[direction];
+            link((y0 + cy) * width + x0 + cx, direction, (y0 + next / w) * width + x0 + next % w);
+            seen[next] = true;
+            stack[top++] = next;
+        }
+
+        // Knock through a few extra walls so the region is not a pure tree
+        for (int cy = 0; cy < h; cy++) {
+            for (int cx = 0; cx < w; cx++) {
+                if (random.nextDouble() < LOOP_CHANCE) {
+                    int room = (y0 + cy) * width + x0 + cx;
+                    if (cx + 1 < w && random.nextBoolean()) {
+                        link(room, EAST, room + 1);
+                    } else if (cy + 1 < h) {
+                        link(room, SOUTH, room + width);
+                    }
+                }
+            }
+        }
+    }
+
+    private void link(int room1, int direction, int room2) {
+        exits[room1 * 4 + direction] = room2;
+        exits[room2 * 4 + (direction ^ 1)] = room1; // north <-> south, east <-> west
+    }
+
+    // Join the regions along a random spanning tree, so every room can be reached from the start
+    private void joinRegions() {
+        SplittableRandom random = random(-1, 0);
+        int regionCount = regionsX * regionsY;
+        boolean[] joined = new boolean[regionCount];
+        int[] stack = new int[regionCount];
+        int[] options = new int[4];
+        int top = 0;
+        joined[0] = true; // The start room is in region 0
+        stack[top++] = 0;
+        while (top > 0) {
+            int region = stack[top - 1];
+            int rx = region % regionsX, ry = region / regionsX;
+            int count = 0;
+            for (int direction = 0; direction < 4; direction++) {
+                int nx = rx + DX[direction], ny = ry + DY[direction];
+                if (nx >= 0 && ny >= 0 && nx < regionsX && ny < regionsY && !joined[ny * regionsX + nx]) {
+                    options[count++] = direction;
+                }
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+            int direction = options[random.nextInt(count)];
+            int next = (ry + DY[direction]) * regionsX + rx + DX[direction];
+            openDoor(rx, ry, direction, random);
+            joined[next] = true;
+            stack[top++] = next;
+        }
+    }
+
+    // Open a door in the wall between a region and its neighbour, at a random spot along the wall
+    private void openDoor(int rx, int ry, int direction, SplittableRandom random) {
+        int x0 = rx * REGION_SIZE, y0 = ry * REGION_SIZE;
+        int room;
+        if (direction == NORTH || direction == SOUTH) {
+            int x = x0 + random.nextInt(Math.min(REGION_SIZE, width - x0));
+            int y = direction == NORTH ? y0 : Math.min(y0 + REGION_SIZE, height) - 1;
+            room = y * width + x;
+        } else {
+            int y = y0 + random.nextInt(Math.min(REGION_SIZE, height - y0));
+            int x = direction == WEST ? x0 : Math.min(x0 + REGION_SIZE, width) - 1;
+            room = y * width + x;
+        }
+        int other = room + DY[direction] * width + DX[direction];
+        link(room, direction, other);
+        if (random.nextDouble() < LOCK_CHANCE) {
+            locked.set(room * 4 + direction); // Locked on the side facing the start, the way back stays open
+        }
+    }
+
+    // Breadth-first search from the start room to find how deep each room lies
+    private void measureDistances() {
+        Arrays.fill(distance, -1);
+        int[] queue = new int[distance.length];
+        int head = 0, tail = 0;
+        distance[0] = 0;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int room = queue[head++];
+            for (int direction = 0; direction < 4; direction++) {
+                int next = exits[room * 4 + direction];
+                if (next != RoomGraph.NO_EXIT && distance[next] < 0) {
+                    distance[next] = distance[room] + 1;
+                    maxDistance = distance[next];
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    private int band(int room) {
+        return (int) ((long) distance[room] * BANDS / (maxDistance + 1));
+    }
+
+    // Choose enemies, loot and descriptions for the rooms of one region
+    private void fillRegion(int region) {
+        int x0 = (region % regionsX) * REGION_SIZE;
+        int y0 = (region / regionsX) * REGION_SIZE;
+        SplittableRandom random = random(region, 1);
+        for (int y = y0; y < Math.min(y0 + REGION_SIZE, height); y++) {
+            for (int x = x0; x < Math.min(x0 + REGION_SIZE, width); x++) {
+                int room = y * width + x;
+                int band = band(room);
+                looks[room] = (byte) random.nextInt(BAND_DESCRIPTIONS[band].length);
+                if (room != 0 && random.nextDouble() < 0.08 + 0.02 * band) { // Deeper rooms are more dangerous
+                    enemies[room] = (byte) (1 + random.nextInt(bandEnemies[band].length));
+                }
+                if (random.nextDouble() < 0.10) {
+                    loot[room] = (byte) (1 + random.nextInt(bandLoot[band].length));
+                }
+            }
+        }
+    }
+
+    private WorldTemplate build() {
+        WorldBuilder builder = new WorldBuilder();
+        Set<Item> defined = Collections.newSetFromMap(new IdentityHashMap<>()); // Some weapons are both loot and enemy weapons
+        builder.defineItem(magicKey);
+        for (Item[] items : bandLoot) {
+            for (Item item : items) {
+                if (defined.add(item)) {
+                    builder.defineItem(item);
+                }
+            }
+        }
+        for (EnemySpawn[] spawns : bandEnemies) {
+            for (EnemySpawn spawn : spawns) {
+                if (defined.add(spawn.weapon())) {
+                    builder.defineItem(spawn.weapon());
+                }
+            }
+        }
+
+        int rooms = width * height;
+        int farthest = 0;
+        for (int room = 0; room < rooms; room++) {
+            int band = band(room);
+            builder.addRoom(BAND_NAMES[band] + " " + (room % width) + "-" + (room / width), BAND_DESCRIPTIONS[band][looks[room]]);
+            if (distance[room] > distance[farthest]) {
+                farthest = room;
+            }
+        }
+        for (int room = 0; room < rooms; room++) {
+            int band = band(room);
+            for (int direction = SOUTH; direction <= EAST; direction++) { // The way back is added by connect
+                int next = exits[room * 4 + direction];
+                if (next != RoomGraph.NO_EXIT) {
+                    builder.connect(room, direction, next);
+                }
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                if (locked.get(room * 4 + direction)) {
+                    builder.lock(room, direction);
+                }
+            }
+            if (enemies[room] != 0) {
+                builder.addEnemy(room, bandEnemies[band][enemies[room] - 1]);
+            }
+            if (loot[room] != 0) {
+                builder.addItem(room, bandLoot[band][loot[room] - 1]);
+            }
+        }
+        builder.addItem(0, magicKey); // Opens every locked door, and the start region has none
+        if (farthest != 0) {
+            builder.addEnemy(farthest, new EnemySpawn("demon", "Malphas", "The Demon Lord of Chaos, a formidable foe.", 50,
+                    bandEnemies[BANDS - 1][1].weapon()));
+        }
+        builder.setStartRoom(0);
+        return builder.build();
+    }
+
+    // Generate a maze: java MazeGenerator <width> <height> <seed> [output.wbin]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: java MazeGenerator <width> <height> <seed> [output" + MappedWorldTemplate.FILE_EXTENSION + "]");
+            return;
+        }
+        int width = Integer.parseInt(args[0]);
+        int height = Integer.parseInt(args[1]);
+        long seed = Long.parseLong(args[2]);
+
+        long start = System.nanoTime();
+        WorldTemplate world = generate(width, height, seed);
+        System.out.printf("Generated %d rooms in %.1f ms using %d threads%n", world.getRoomCount(),
+                (System.nanoTime() - start) / 1e6, ForkJoinPool.getCommonPoolParallelism());
+
+        if (args.length > 3) {
+            WorldCompiler.compile(world, Path.of(args[3]));
+            System.out.println("Written to " + args[3]);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+
+// Audio backend that plays through the process-wide AudioEngine
+public final class MixerAudioBackend implements AudioBackend {
+    private final AudioEngine engine = AudioEngine.getInstance();
+
+    @Override
+    public String getName() {
+        return "mixer";
+    }
+
+    @Override
+    public void load(String soundName, String assetName) throws IOException, UnsupportedAudioFileException {
+        engine.getSounds().load(soundName, assetName);
+    }
+
+    @Override
+    public boolean play(String soundName, int priority) {
+        return engine.play(soundName, priority);
+    }
+
+    @Override
+    public void playMusic(String assetName, int crossfadeMillis) {
+        engine.getMusic().switchTrack(assetName, crossfadeMillis);
+    }
+
+    @Override
+    public void stopMusic() {
+        engine.getMusic().stop();
+    }
+
+    @Override
+    public void stopEffects() {
+        engine.stopEffects();
+    }
+
+    @Override
+    public void setBusGain(AudioEngine.Bus bus, float decibels) {
+        engine.setBusGain(bus, decibels);
+    }
+}
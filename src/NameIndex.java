@@ -0,0 +1,75 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+// Finds entries by name, ignoring case, with one hash lookup however many entries there are.
+// Several entries may share a name; they are kept in the order they were added, so the first match
+// is the same one a scan of the owner's list would find. The owner must call add and remove
+// whenever its list changes.
+public final class NameIndex<T> {
+    private final HashMap<String, List<T>> entries = new HashMap<>(); // Lower case name -> entries with that name
+    private final Function<? super T, String> nameOf;
+
+    public NameIndex(Function<? super T, String> nameOf) {
+        this.nameOf = nameOf;
+    }
+
+    public NameIndex(Function<? super T, String> nameOf, List<? extends T> initial) {
+        this(nameOf);
+        for (T entry : initial) {
+            add(entry);
+        }
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    public void add(T entry) {
+        entries.computeIfAbsent(key(nameOf.apply(entry)), name -> new ArrayList<>(1)).add(entry);
+    }
+
+    // Remove the first entry equal to the given one, like List.remove does
+    public boolean remove(T entry) {
+        String name = key(nameOf.apply(entry));
+        List<T> named = entries.get(name);
+        if (named == null || !named.remove(entry)) {
+            return false;
+        }
+        if (named.isEmpty()) {
+            entries.remove(name);
+        }
+        return true;
+    }
+
+    // First entry with the name, or null
+    public T find(String name) {
+        List<T> named = entries.get(key(name));
+        return named == null ? null : named.get(0);
+    }
+
+    // First entry with the name that is of the given type, or null
+    public <S extends T> S find(String name, Class<S> type) {
+        List<T> named = entries.get(key(name));
+        if (named != null) {
+            for (T entry : named) {
+                if (type.isInstance(entry)) {
+                    return type.cast(entry);
+                }
+            }
+        }
+        return null;
+    }
+
+    public boolean contains(String name) {
+        return entries.containsKey(key(name));
+    }
+
+    // Whether an entry equal to the given one is indexed, like List.contains
+    public boolean containsEntry(T entry) {
+        List<T> named = entries.get(key(nameOf.apply(entry)));
+        return named != null && named.contains(entry);
+    }
+}
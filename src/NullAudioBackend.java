@@ -0,0 +1,37 @@
+// Audio backend for hosts without sound: accepts every cue and does nothing with it.
+public final class NullAudioBackend implements AudioBackend {
+    public static final NullAudioBackend INSTANCE = new NullAudioBackend();
+
+    private NullAudioBackend() {
+    }
+
+    @Override
+    public String getName() {
+        return "null";
+    }
+
+    @Override
+    public void load(String soundName, String assetName) {
+    }
+
+    @Override
+    public boolean play(String soundName, int priority) {
+        return true; // Nothing to play it on, and nothing went wrong
+    }
+
+    @Override
+    public void playMusic(String assetName, int crossfadeMillis) {
+    }
+
+    @Override
+    public void stopMusic() {
+    }
+
+    @Override
+    public void stopEffects() {
+    }
+
+    @Override
+    public void setBusGain(AudioEngine.Bus bus, float decibels) {
+    }
+}
@@ -0,0 +1,82 @@
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+// Collects game messages and writes them to a text area in one go.
+//
+// Messages may be added from any thread. The first message after a flush schedules the next flush
+// on the EDT, so everything a command prints while it runs (it runs in one EDT event) reaches the
+// document as a single insert with a single caret move. The document keeps at most maxLines lines;
+// the oldest lines are dropped as new ones arrive.
+public class OutputBuffer {
+    private final JTextArea textArea;
+    private final int maxLines;
+
+    // Guarded by this
+    private final StringBuilder pending = new StringBuilder();
+    private boolean clearPending;    // Empty the text area before adding pending
+    private boolean flushScheduled;
+
+    public OutputBuffer(JTextArea textArea, int maxLines) {
+        this.textArea = textArea;
+        this.maxLines = maxLines;
+    }
+
+    // Add a line of output
+    public synchronized void append(String message) {
+        pending.append(message).append('\n');
+        scheduleFlush();
+    }
+
+    // Empty the output, including anything not yet shown
+    public synchronized void clear() {
+        pending.setLength(0);
+        clearPending = true;
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    // Write everything pending to the text area. Runs on the EDT.
+    private void flush() {
+        String text;
+        boolean clear;
+        synchronized (this) {
+            text = pending.toString();
+            clear = clearPending;
+            pending.setLength(0);
+            clearPending = false;
+            flushScheduled = false;
+        }
+        if (clear) {
+            textArea.setText(text);
+        } else if (!text.isEmpty()) {
+            textArea.append(text);
+        } else {
+            return;
+        }
+        trim();
+        textArea.setCaretPosition(textArea.getDocument().getLength()); // Auto-scroll to the bottom once
+    }
+
+    // Drop the oldest lines beyond maxLines
+    private void trim() {
+        Document document = textArea.getDocument();
+        Element root = document.getDefaultRootElement();
+        int excess = root.getElementCount() - maxLines;
+        if (excess <= 0) {
+            return;
+        }
+        try {
+            document.remove(0, root.getElement(excess).getStartOffset());
+        } catch (BadLocationException e) {
+            GameLog.warn(GameLog.Category.UI, "Could not trim the output: {}", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+// A single piece of output produced by a headless GameSession
+public record OutputEvent(Type type, String text) {
+
+    public enum Type {
+        MESSAGE,   // A line of text for the player
+        CLEAR,     // The output area was cleared
+        GAME_OVER, // The player died
+        EXIT       // The player typed 'exit'
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.MESSAGE ? text : "[" + type + "]";
+    }
+}
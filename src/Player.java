@@ -1,20 +1,24 @@
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Player {
     private Room currentRoom; // Reference to the player's current room
     private List<Item> inventory; // Player's inventory
+    private final NameIndex<Item> inventoryIndex = new NameIndex<>(Item::getShortName); // Inventory by short name
     private final int MAX_INVENTORY_SIZE = 10; // Maximum inventory size
     private Weapon equippedWeapon; // Currently equipped weapon
 
     private int health; // Player's health
     private final int MAX_HEALTH = 100; // Maximum health
-    private UserInterface ui; // Reference to the UI
+    private GameOutput ui; // Reference to the output (Swing UI or headless session)
+    private final GameEventBus events; // Where moves and fights are announced to sound, logging and the like
 
     // Constructor
-    public Player(Room startingRoom, UserInterface ui) {
+    public Player(Room startingRoom, GameOutput ui, GameEventBus events) {
         this.currentRoom = startingRoom; // Set the current room
         this.ui = ui; // Set UI instance
+        this.events = events;
         this.inventory = new ArrayList<>(); // Initialize inventory
         this.health = MAX_HEALTH; // Set health to maximum
         this.equippedWeapon = null; // Initialize equipped weapon
@@ -34,9 +38,9 @@ public class Player {
         }
     }
 
-    // Helper method to print to both terminal and UI
+    // Helper method to show a message in the UI and log it
     private void printAndShowMessage(String message) {
-        System.out.println(message); // Output to terminal
+        GameLog.debug(GameLog.Category.GAME, "{}", message); // Copy for the log, off unless game debugging is enabled
         ui.showMessage(message); // Output to UI
     }
 
@@ -87,9 +91,35 @@ public class Player {
         return currentRoom; // Return the current room
     }
 
-    // Getter for the inventory
+    // Getter for the inventory, read only so the name index stays in step
     public List<Item> getInventory() {
-        return inventory; // Return the inventory
+        return Collections.unmodifiableList(inventory); // Return the inventory
+    }
+
+    // Every change to the inventory goes through these two, so the index always matches the list
+    private void addToInventory(Item item) {
+        inventory.add(item);
+        inventoryIndex.add(item);
+    }
+
+    private void removeFromInventory(Item item) {
+        if (inventory.remove(item)) {
+            inventoryIndex.remove(item);
+        }
+    }
+
+    // Take over the state of a saved game, without any messages
+    public void restore(Room room, int health, List<Item> items, Weapon weapon) {
+        for (Item item : inventory) {
+            inventoryIndex.remove(item);
+        }
+        inventory.clear();
+        for (Item item : items) {
+            addToInventory(item);
+        }
+        currentRoom = room;
+        this.health = Math.min(health, MAX_HEALTH);
+        equippedWeapon = weapon;
     }
 
     // Method to equip a weapon from the inventory
@@ -100,7 +130,7 @@ public class Player {
     // Overloaded method to allow suppressing the UI message
     public boolean equipWeapon(Weapon weapon, boolean showInUI) {
         // Check if the weapon exists in the inventory
-        if (!inventory.contains(weapon)) {
+        if (!inventoryIndex.containsEntry(weapon)) {
             if (showInUI) {
                 printAndShowMessage("You don't have that weapon.");
             }
@@ -112,8 +142,8 @@ public class Player {
             // Only return the previously equipped weapon to inventory if it's not the same as the new weapon
             if (!equippedWeapon.equals(weapon)) {
                 // Remove the equipped weapon from the inventory if it's not already there to avoid duplication
-                if (!inventory.contains(equippedWeapon)) {
-                    inventory.add(equippedWeapon);
+                if (!inventoryIndex.containsEntry(equippedWeapon)) {
+                    addToInventory(equippedWeapon);
                     printAndShowMessage("Your " + equippedWeapon.getLongName() + " has been returned to your inventory.");
                 }
             }
@@ -124,7 +154,7 @@ public class Player {
 
         // Show the equip message
         if (showInUI) {
-            System.out.println("You have equipped: " + equippedWeapon.getLongName());
+            GameLog.debug(GameLog.Category.GAME, "You have equipped: {}", equippedWeapon.getLongName());
         }
 
         return true; // Successfully equipped the weapon
@@ -176,6 +206,8 @@ public class Player {
                 // Inform that the enemy is defeated and they dropped their weapon
                 printAndShowMessage("You have defeated " + targetEnemy.getName() + "! They dropped their weapon for you.");
                 currentRoom.removeEnemy(targetEnemy); // Remove the defeated enemy from the room
+                events.publish(new GameEvent.Attacked(targetEnemy.getName(), damageDealt, 0, getHealth()));
+                events.publish(new GameEvent.EnemyDefeated(targetEnemy.getName(), currentRoom.getId()));
                 return; // Exit since the enemy is dead
             }
 
@@ -188,6 +220,7 @@ public class Player {
             // Show the player's health after the enemy attack
             printAndShowMessage("You took " + enemyDamage + " damage.");
             ui.showHealth(getHealth(), getMaxHealth());
+            events.publish(new GameEvent.Attacked(targetEnemy.getName(), damageDealt, enemyDamage, getHealth()));
         } else {
             printAndShowMessage("You have no weapon equipped or your weapon can't be used."); // Notify if the weapon can't be used
         }
@@ -208,11 +241,7 @@ public class Player {
         }
 
         // Retrieve the food from the inventory
-        Food food = inventory.stream()
-                .filter(item -> item instanceof Food && item.getShortName().equalsIgnoreCase(foodName))
-                .map(item -> (Food) item)
-                .findFirst()
-                .orElse(null);
+        Food food = inventoryIndex.find(foodName, Food.class);
 
         // Check if the food exists in the inventory
         if (food == null) {
@@ -255,11 +284,7 @@ public class Player {
         }
 
         // Retrieve the potion from the inventory
-        Potion potion = inventory.stream()
-                .filter(item -> item instanceof Potion && item.getShortName().equalsIgnoreCase(potionName))
-                .map(item -> (Potion) item)
-                .findFirst()
-                .orElse(null);
+        Potion potion = inventoryIndex.find(potionName, Potion.class);
 
         // Check if the potion exists in the inventory
         if (potion == null) {
@@ -297,33 +322,23 @@ public class Player {
 
     // Move in the specified direction
     public boolean move(String direction) {
-        Room nextRoom = null;
-        switch (direction.toLowerCase()) {
-            case "north":
-                nextRoom = currentRoom.getNorth();
-                break;
-            case "south":
-                nextRoom = currentRoom.getSouth();
-                break;
-            case "east":
-                if (currentRoom.isEastLocked()) {
-                    printAndShowMessage("The eastern door is locked!");
-                    return false;
-                }
-                nextRoom = currentRoom.getEast();
-                break;
-            case "west":
-                nextRoom = currentRoom.getWest();
-                break;
-            default:
-                printAndShowMessage("Invalid direction. Please try north, south, east, or west.");
-                return false;
+        int dir = RoomGraph.direction(direction);
+        if (dir < 0) {
+            printAndShowMessage("Invalid direction. Please try north, south, east, or west.");
+            return false;
         }
+        if (currentRoom.isLocked(dir)) {
+            printAndShowMessage("The " + direction.toLowerCase() + "ern door is locked!");
+            return false;
+        }
+        Room nextRoom = currentRoom.getExit(dir);
 
         if (nextRoom != null) {
             currentRoom.setVisited(true);
+            Room previousRoom = currentRoom;
             currentRoom = nextRoom;
             printAndShowMessage("You moved to " + currentRoom.getName() + ".");
+            events.publish(new GameEvent.Moved(previousRoom.getId(), currentRoom.getId(), dir));
             return true;
         } else {
             printAndShowMessage("You can't go that way!");
@@ -339,26 +354,15 @@ public class Player {
             return false; // Prevent movement if enemies are present
         }
 
-        switch (direction.toLowerCase()) {
-            case "north":
-                return currentRoom.getNorth() != null;
-            case "south":
-                return currentRoom.getSouth() != null;
-            case "east":
-                return !currentRoom.isEastLocked() && currentRoom.getEast() != null;
-            case "west":
-                return currentRoom.getWest() != null;
-            default:
-                return false;
-        }
+        int dir = RoomGraph.direction(direction);
+        return dir >= 0 && currentRoom.getExit(dir) != null; // Locked doors have no exit behind them
     }
 
     // Method to findItem in inventory
     public Item findItemInInventory(String itemName) {
-        for (Item item : inventory) {
-            if (item.getShortName().equalsIgnoreCase(itemName)) {
-                return item; // Return the item if found
-            }
+        Item item = inventoryIndex.find(itemName);
+        if (item != null) {
+            return item; // Return the item if found
         }
         printAndShowMessage("Item not found in inventory: " + itemName);
         return null; // Return null if not found
@@ -366,19 +370,14 @@ public class Player {
 
     // Method to check if the player has a specific item
     public boolean hasItem(String itemName) {
-        for (Item item : inventory) {
-            if (item.getShortName().equalsIgnoreCase(itemName)) {
-                return true;
-            }
-        }
-        return false;
+        return inventoryIndex.contains(itemName);
     }
 
 
     // Method to add an item to the inventory (Take item from room)
     public boolean addItem(Item item) {
         if (inventory.size() < MAX_INVENTORY_SIZE) {
-            inventory.add(item); // Add the item to inventory
+            addToInventory(item); // Add the item to inventory
             printAndShowMessage("You have picked up: " + item.getLongName()); // Output to UI and terminal
             return true; // Indicate success
         } else {
@@ -389,8 +388,8 @@ public class Player {
 
     // Method to remove an item from the inventory (Drop item to room)
     public boolean removeItem(Item item, boolean showDropMessage) {
-        if (inventory.contains(item)) {
-            inventory.remove(item); // Remove the item from inventory
+        if (inventoryIndex.containsEntry(item)) {
+            removeFromInventory(item); // Remove the item from inventory
 
             // Only show the drop message if we are actually dropping the item
             if (showDropMessage) {
@@ -408,7 +407,7 @@ public class Player {
     public boolean takeItem(String itemName) {
         Item itemToTake = currentRoom.findItem(itemName);
         if (itemToTake != null) {
-            inventory.add(itemToTake); // Add item to inventory
+            addToInventory(itemToTake); // Add item to inventory
             currentRoom.removeItem(itemToTake); // Remove from room
             return true; // Indicate success
         }
@@ -419,7 +418,7 @@ public class Player {
     public boolean dropItem(String itemName) {
         Item itemToDrop = findItemInInventory(itemName);
         if (itemToDrop != null) {
-            inventory.remove(itemToDrop); // Remove the item from inventory
+            removeFromInventory(itemToDrop); // Remove the item from inventory
             currentRoom.addItem(itemToDrop); // Add the item to the current room
             return true; //success
         } else {
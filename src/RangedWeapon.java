@@ -1,9 +1,15 @@
 public class RangedWeapon extends Weapon {
     private int ammo; // Ammunition available for the weapon
+    private final RangedWeapon definition; // The world's weapon a session copy was made from
 
     public RangedWeapon(String shortName, String longName, String description, int damage, int ammo) {
+        this(shortName, longName, description, damage, ammo, null);
+    }
+
+    private RangedWeapon(String shortName, String longName, String description, int damage, int ammo, RangedWeapon definition) {
         super(shortName, longName, description, damage);
         this.ammo = ammo; // Initialize ammo
+        this.definition = definition;
     }
 
     // Get the current ammo count
@@ -34,6 +40,22 @@ public class RangedWeapon extends Weapon {
         System.out.println("Reloaded " + amount + " ammo into the " + getLongName() + ". Total ammo: " + ammo);
     }
 
+    // Set the ammo left, as when a saved game is loaded
+    public void setAmmo(int ammo) {
+        this.ammo = ammo;
+    }
+
+    // Ammo is used up during a game, so each session needs its own copy
+    @Override
+    public Item instantiate() {
+        return new RangedWeapon(getShortName(), getLongName(), getDescription(), getDamage(), ammo, (RangedWeapon) getDefinition());
+    }
+
+    @Override
+    public Item getDefinition() {
+        return definition != null ? definition : this;
+    }
+
     @Override
     public String toString() {
         return super.toString() + " (Ammo: " + ammo + ")";
@@ -2,25 +2,66 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Room {
+    private final RoomTemplate template; // Shared template this room starts from, null for hand-built rooms
+    private final Map world;             // Session map used to look up exits of template rooms
     private String name;
     private String description;
-    private Room north, south, east, west;
-    private ArrayList<Item> items; // List of items in the room
-    private List<Enemy> enemies; // Use List to hold enemies
-    private boolean visited = false;  // Mark whether the room has been visited
-    private boolean lockedEast = false;  // Marks if the eastern door is locked
+    private Room north, south, east, west; // Exits of hand-built rooms, template rooms ask the map
+    private ArrayList<Item> items; // List of items in the room, null until the template items are changed
+    private NameIndex<Item> itemIndex; // Items by short name, kept together with items
+    private List<Enemy> enemies; // Use List to hold enemies, spawned from the template when first needed
+    private NameIndex<Enemy> enemyIndex; // Enemies by name, kept together with enemies
+    private boolean visited = false;  // Mark whether the room has been visited (hand-built rooms only)
+    private int lockedDoors = 0;      // One bit per locked direction (hand-built rooms only)
 
     // Constructor
     public Room(String name, String description) {
+        this.template = null;
+        this.world = null;
         this.name = name;
         this.description = description;
         this.items = new ArrayList<>(); // Initialize the item list
+        this.itemIndex = new NameIndex<>(Item::getShortName);
         this.enemies = new ArrayList<>(); // Initialize the enemy list
+        this.enemyIndex = new NameIndex<>(Enemy::getName);
+    }
+
+    // Constructor for a session room backed by a shared template
+    public Room(RoomTemplate template, Map world) {
+        this.template = template;
+        this.world = world;
+        this.name = template.getName(); // Strings are shared with the template
+        this.description = template.getDescription();
+    }
+
+    // Id of the room in its world, or -1 for hand-built rooms
+    public int getId() {
+        return template != null ? template.getId() : -1;
+    }
+
+    // Room behind an exit (RoomGraph.NORTH, SOUTH, EAST or WEST), or null if there is none or the door is locked
+    public Room getExit(int direction) {
+        if (template != null) {
+            return world.getExit(template.getId(), direction); // Looked up every time, so an evicted room is never left behind
+        }
+        if (isLocked(direction)) {
+            return null;
+        }
+        switch (direction) {
+            case RoomGraph.NORTH:
+                return north;
+            case RoomGraph.SOUTH:
+                return south;
+            case RoomGraph.EAST:
+                return east;
+            default:
+                return west;
+        }
     }
 
     // Getter and setter methods for directions with automatic bidirectional linking
     public Room getNorth() {
-        return north;
+        return getExit(RoomGraph.NORTH);
     }
 
     public void setNorth(Room north) {
@@ -31,7 +72,7 @@ public class Room {
     }
 
     public Room getSouth() {
-        return south;
+        return getExit(RoomGraph.SOUTH);
     }
 
     public void setSouth(Room south) {
@@ -42,8 +83,8 @@ public class Room {
     }
 
     public Room getEast() {
-        return lockedEast ? null : east;
-    } // Prevent movement if locked
+        return getExit(RoomGraph.EAST);
+    }
 
     public void setEast(Room east) {
         this.east = east;
@@ -53,7 +94,7 @@ public class Room {
     }
 
     public Room getWest() {
-        return west;
+        return getExit(RoomGraph.WEST);
     }
 
     public void setWest(Room west) {
@@ -65,11 +106,34 @@ public class Room {
 
     // Mark the room as visited
     public void setVisited(boolean visited) {
-        this.visited = visited;
+        if (template != null) {
+            world.setVisited(template.getId(), visited); // Kept by the session map so the room itself stays unchanged
+        } else {
+            this.visited = visited;
+        }
     }
 
     public boolean isVisited() {
-        return visited;
+        return template != null ? world.isVisited(template.getId()) : visited;
+    }
+
+    // True if nothing in this room differs from its template, so it can be dropped and recreated later
+    public boolean isPristine() {
+        if (template == null || items != null) { // Locks are kept by the session map
+            return false;
+        }
+        if (enemies == null) {
+            return true; // Never spawned
+        }
+        if (enemies.size() != template.getEnemies().size()) {
+            return false;
+        }
+        for (Enemy enemy : enemies) {
+            if (enemy.getHealth() != enemy.getMaxHealth()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     // Getter for room name
@@ -82,67 +146,122 @@ public class Room {
         return description;
     }
 
-    // Lock and unlock the eastern door
+    // Lock and unlock the door in a direction
+    public void lock(int direction) {
+        setLocked(direction, true);
+    }
+
+    public void unlock(int direction) {
+        setLocked(direction, false);
+    }
+
+    private void setLocked(int direction, boolean locked) {
+        if (template != null) {
+            world.setLocked(template.getId(), direction, locked);
+        } else if (locked) {
+            lockedDoors |= 1 << direction;
+        } else {
+            lockedDoors &= ~(1 << direction);
+        }
+    }
+
+    public boolean isLocked(int direction) {
+        return template != null ? world.isLocked(template.getId(), direction) : (lockedDoors & (1 << direction)) != 0;
+    }
+
     public void lockEast() {
-        this.lockedEast = true;
+        lock(RoomGraph.EAST);
     }
 
     public void unlockEast() {
-        this.lockedEast = false;
+        unlock(RoomGraph.EAST);
     }
 
     public boolean isEastLocked() {
-        return lockedEast;
+        return isLocked(RoomGraph.EAST);
     }
 
     // Item functions
     public void addItem(Item item) {
-        items.add(item);
+        ownItems().add(item);
+        itemIndex.add(item);
     }
 
     public void removeItem(Item item) {
-        if (items.remove(item)) {
-            System.out.println("Removed item: " + item.getLongName()); // Log successful removal
+        if (ownItems().remove(item)) {
+            itemIndex.remove(item);
+            GameLog.debug(GameLog.Category.GAME, "Removed item: {}", item.getLongName()); // Log successful removal
         } else {
-            System.out.println("Failed to remove item: " + item.getLongName()); // Log failure
+            GameLog.warn(GameLog.Category.GAME, "Failed to remove item: {}", item.getLongName()); // Log failure
         }
     }
 
+    // Items currently in the room. Do not modify the list, use addItem and removeItem.
+    public List<Item> getItems() {
+        if (items == null && !template.hasSessionItems()) {
+            return template.getItems(); // Nothing changed yet, share the template list
+        }
+        return ownItems();
+    }
 
-    public ArrayList<Item> getItems() {
+    // Copy the template items into this session the first time they change
+    private ArrayList<Item> ownItems() {
+        if (items == null) {
+            List<Item> templateItems = template.getItems();
+            items = new ArrayList<>(templateItems.size() + 2);
+            for (Item item : templateItems) {
+                items.add(item.instantiate()); // Shared items stay shared, ranged weapons get their own ammo
+            }
+            itemIndex = new NameIndex<>(Item::getShortName, items);
+        }
         return items;
     }
 
     // Method to find an item by its short name
     public Item findItem(String itemName) {
-        for (Item item : items) {
-            if (item.getShortName().equalsIgnoreCase(itemName)) {
-                return item; // Return the item if found
-            }
+        if (items == null && !template.hasSessionItems()) {
+            return template.findItem(itemName); // Nothing changed yet, use the shared index
         }
-        return null; // Item not found
+        ownItems();
+        return itemIndex.find(itemName);
     }
 
 
     // Methods for enemy management
     public void addEnemy(Enemy enemy) {
-        enemies.add(enemy);
+        getEnemies().add(enemy);
+        enemyIndex.add(enemy);
     }
 
     public void removeEnemy(Enemy enemy) {
-        enemies.remove(enemy);
+        if (getEnemies().remove(enemy)) {
+            enemyIndex.remove(enemy);
+        }
     }
 
+    // Enemies currently in the room. Do not modify the list, use addEnemy and removeEnemy.
     public List<Enemy> getEnemies() {
+        if (enemies == null) {
+            // Spawn this session's enemies the first time anyone looks at them
+            enemies = new ArrayList<>(template.getEnemies().size());
+            for (EnemySpawn spawn : template.getEnemies()) {
+                enemies.add(spawn.spawn());
+            }
+            enemyIndex = new NameIndex<>(Enemy::getName, enemies);
+        }
         return enemies; // Return the list of enemies
     }
 
+    // Replace the items and enemies with those of a saved game
+    public void restore(List<Item> items, List<Enemy> enemies) {
+        this.items = new ArrayList<>(items);
+        this.itemIndex = new NameIndex<>(Item::getShortName, this.items);
+        this.enemies = new ArrayList<>(enemies);
+        this.enemyIndex = new NameIndex<>(Enemy::getName, this.enemies);
+    }
+
     public Enemy findEnemy(String name) {
-        for (Enemy enemy : enemies) {
-            if (enemy.getName().equalsIgnoreCase(name)) {
-                return enemy;
-            }
-        }
-        return null; // Enemy not found
+        getEnemies(); // Make sure the enemies and their index exist
+        return enemyIndex.find(name); // Null if not found
     }
 }
@@ -0,0 +1,149 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+// The exits of every room in a world, stored as compressed sparse rows.
+//
+// Rooms are dense int ids. The edges leaving room r are firstEdge(r) .. firstEdge(r + 1) - 1; each
+// edge has a target room, a direction byte and a lock bit. Doors in any direction can be locked.
+// The graph itself never changes: a session keeps the doors it has locked or unlocked as a BitSet of
+// edges whose lock state differs from the start, and passes it to the methods that care about locks.
+public final class RoomGraph {
+    public static final int NORTH = 0, SOUTH = 1, EAST = 2, WEST = 3; // Opposite directions differ only in the lowest bit
+    public static final int NO_EXIT = -1; // Target used when there is no room in that direction
+    private static final String[] DIRECTION_NAMES = {"north", "south", "east", "west"};
+
+    private final int[] offsets;     // First edge of every room, plus the total edge count at the end
+    private final int[] targets;     // Room behind each edge
+    private final byte[] directions; // Direction of each edge
+    private final BitSet locked;     // Edges that start locked
+
+    // Build the graph from packed exits (north, south, east, west for every room, NO_EXIT if missing)
+    // and a set of locked exits indexed the same way (room * 4 + direction)
+    public RoomGraph(int roomCount, int[] exits, BitSet lockedExits) {
+        offsets = new int[roomCount + 1];
+        int edges = 0;
+        for (int room = 0; room < roomCount; room++) {
+            offsets[room] = edges;
+            for (int direction = 0; direction < 4; direction++) {
+                if (exits[room * 4 + direction] != NO_EXIT) {
+                    edges++;
+                }
+            }
+        }
+        offsets[roomCount] = edges;
+
+        targets = new int[edges];
+        directions = new byte[edges];
+        locked = new BitSet(edges);
+        int edge = 0;
+        for (int room = 0; room < roomCount; room++) {
+            for (int direction = 0; direction < 4; direction++) {
+                int target = exits[room * 4 + direction];
+                if (target != NO_EXIT) {
+                    targets[edge] = target;
+                    directions[edge] = (byte) direction;
+                    if (lockedExits.get(room * 4 + direction)) {
+                        locked.set(edge);
+                    }
+                    edge++;
+                }
+            }
+        }
+    }
+
+    // Parse a direction name, or return -1 if it is not one
+    public static int direction(String name) {
+        for (int direction = 0; direction < 4; direction++) {
+            if (DIRECTION_NAMES[direction].equalsIgnoreCase(name)) {
+                return direction;
+            }
+        }
+        return -1;
+    }
+
+    public static String directionName(int direction) {
+        return DIRECTION_NAMES[direction];
+    }
+
+    public int getRoomCount() {
+        return offsets.length - 1;
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    // Edges of a room are firstEdge(room) up to, but not including, firstEdge(room + 1)
+    public int firstEdge(int room) {
+        return offsets[room];
+    }
+
+    // Room an edge leaves from, found by binary search over the row offsets
+    public int getSource(int edge) {
+        int low = 0, high = offsets.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= edge) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public int getDirection(int edge) {
+        return directions[edge];
+    }
+
+    // Return the edge leaving a room in a direction, or -1 if there is none
+    public int findEdge(int room, int direction) {
+        for (int edge = offsets[room]; edge < offsets[room + 1]; edge++) {
+            if (directions[edge] == direction) {
+                return edge;
+            }
+        }
+        return -1;
+    }
+
+    // Return the room behind an exit, ignoring locks, or NO_EXIT
+    public int getExit(int room, int direction) {
+        int edge = findEdge(room, direction);
+        return edge < 0 ? NO_EXIT : targets[edge];
+    }
+
+    public boolean isLockedAtStart(int edge) {
+        return locked.get(edge);
+    }
+
+    // Whether an edge is locked, given the edges a session has changed (may be null)
+    public boolean isLocked(int edge, BitSet changedLocks) {
+        return locked.get(edge) != (changedLocks != null && changedLocks.get(edge));
+    }
+
+    // Breadth-first search from a room through unlocked doors. Fills distance with the number of steps
+    // to each room (-1 if it cannot be reached) and returns how many rooms were reached. Both arrays
+    // are supplied by the caller and need at least getRoomCount() entries, so nothing is allocated.
+    public int search(int source, BitSet changedLocks, int[] distance, int[] queue) {
+        Arrays.fill(distance, 0, getRoomCount(), -1);
+        int head = 0, tail = 0;
+        distance[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int room = queue[head++];
+            int next = distance[room] + 1;
+            for (int edge = offsets[room]; edge < offsets[room + 1]; edge++) {
+                int target = targets[edge];
+                if (distance[target] < 0 && !isLocked(edge, changedLocks)) {
+                    distance[target] = next;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,65 @@
+import java.util.List;
+
+// The part of a room that never changes during a game. One RoomTemplate is shared by every session.
+// Exits and locks are kept for the whole world in its RoomGraph.
+public final class RoomTemplate {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final List<Item> items;             // Items lying in the room when the game starts
+    private final List<EnemySpawn> enemies;     // Enemies waiting in the room when the game starts
+    private final boolean hasSessionItems;      // True if some item needs its own copy per session
+    private volatile NameIndex<Item> itemIndex; // Built on the first lookup, then shared by every session
+
+    public RoomTemplate(int id, String name, String description, List<Item> items, List<EnemySpawn> enemies) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.items = List.copyOf(items);
+        this.enemies = List.copyOf(enemies);
+
+        boolean sessionItems = false;
+        for (Item item : this.items) {
+            if (item.instantiate() != item) {
+                sessionItems = true;
+                break;
+            }
+        }
+        this.hasSessionItems = sessionItems;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // Unmodifiable list of the starting items
+    public List<Item> getItems() {
+        return items;
+    }
+
+    // Starting item with the given short name (ignoring case), or null
+    public Item findItem(String itemName) {
+        NameIndex<Item> index = itemIndex;
+        if (index == null) {
+            index = new NameIndex<>(Item::getShortName, items);
+            itemIndex = index; // Two threads may both build it; either copy is complete
+        }
+        return index.find(itemName);
+    }
+
+    public List<EnemySpawn> getEnemies() {
+        return enemies;
+    }
+
+    public boolean hasSessionItems() {
+        return hasSessionItems;
+    }
+}
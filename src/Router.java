@@ -0,0 +1,198 @@
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Shortest routes through a world's room graph, for the travel command.
+//
+// A route tree holds, for one destination, the number of steps from every room to it; the next hop
+// from a room is any unlocked exit to a room one step closer. Trees for the world's starting locks
+// are shared by every session. A session that has locked or unlocked doors keeps using a shared tree
+// as long as none of its changed doors could make a route shorter or break it, and otherwise builds
+// its own, which it drops again only when a later door change affects it.
+//
+// A tree takes 4 bytes per room, so how many trees are kept depends on the size of the world: small
+// worlds keep up to 64 shared trees, a world of a million rooms keeps 8. Session trees are soft
+// references, so sessions that changed doors give their trees back when memory runs low.
+public class Router {
+    private static final int SHARED_TREE_BUDGET = 8 << 20;  // Rooms over all shared trees (32 MB)
+    private static final int SESSION_TREE_BUDGET = 2 << 20; // Rooms over one session's trees (8 MB)
+    private static final int MAX_SHARED_TREES = 64;
+    private static final int MAX_SESSION_TREES = 8;
+    private static final int MAX_CHECKED_CHANGES = 64; // Above this a session just builds its own trees
+
+    private final RoomGraph graph;
+    private final int sharedTreeLimit;
+    private final int sessionTreeLimit;
+    // Destination -> steps. A tree being built is an unfinished future, so it is built only once.
+    private final ConcurrentHashMap<Integer, CompletableFuture<int[]>> sharedTrees = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<int[]> spareQueues = new ConcurrentLinkedQueue<>(); // Search queues to reuse
+    private final int maxSpareQueues = Runtime.getRuntime().availableProcessors();
+
+    public Router(RoomGraph graph) {
+        this.graph = graph;
+        int roomCount = Math.max(1, graph.getRoomCount());
+        this.sharedTreeLimit = Math.max(1, Math.min(MAX_SHARED_TREES, SHARED_TREE_BUDGET / roomCount));
+        this.sessionTreeLimit = Math.max(1, Math.min(MAX_SESSION_TREES, SESSION_TREE_BUDGET / roomCount));
+    }
+
+    // Per-session view of the routes, following that session's door changes
+    public Session newSession(BitSet changedLocks) {
+        return new Session(changedLocks);
+    }
+
+    public class Session {
+        private final BitSet changedLocks; // Owned by the session's Map, read here
+        private final LinkedHashMap<Integer, SoftReference<int[]>> trees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(java.util.Map.Entry<Integer, SoftReference<int[]>> eldest) {
+                return size() > sessionTreeLimit;
+            }
+        };
+
+        private Session(BitSet changedLocks) {
+            this.changedLocks = changedLocks;
+        }
+
+        // Direction of the next step from a room towards a destination, or -1 if it cannot be reached
+        public int nextDirection(int from, int destination) {
+            if (from == destination) {
+                return -1;
+            }
+            int[] steps = tree(destination);
+            if (steps[from] < 0) {
+                return -1;
+            }
+            for (int edge = graph.firstEdge(from); edge < graph.firstEdge(from + 1); edge++) {
+                if (steps[graph.getTarget(edge)] == steps[from] - 1 && !graph.isLocked(edge, changedLocks)) {
+                    return graph.getDirection(edge);
+                }
+            }
+            return -1;
+        }
+
+        // Number of steps from a room to a destination, or -1 if it cannot be reached
+        public int distance(int from, int destination) {
+            return tree(destination)[from];
+        }
+
+        private int[] tree(int destination) {
+            if (changedLocks.isEmpty()) {
+                return sharedTree(destination);
+            }
+            SoftReference<int[]> own = trees.get(destination);
+            int[] steps = own != null ? own.get() : null;
+            if (steps == null) {
+                CompletableFuture<int[]> shared = sharedTrees.get(destination);
+                steps = shared != null ? shared.getNow(null) : null; // Waiting for a tree that may not fit costs more than building one
+                if (steps == null || !unaffected(steps)) {
+                    steps = buildTree(destination, changedLocks);
+                    trees.put(destination, new SoftReference<>(steps));
+                }
+            }
+            return steps;
+        }
+
+        // True if a shared tree is still right for this session's door changes
+        private boolean unaffected(int[] steps) {
+            if (changedLocks.cardinality() > MAX_CHECKED_CHANGES) {
+                return false;
+            }
+            for (int edge = changedLocks.nextSetBit(0); edge >= 0; edge = changedLocks.nextSetBit(edge + 1)) {
+                if (affects(steps, edge, graph.isLocked(edge, changedLocks))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Called by the session's Map after it locked or unlocked a door
+        public void lockChanged(int edge, boolean locked) {
+            Iterator<SoftReference<int[]>> iterator = trees.values().iterator();
+            while (iterator.hasNext()) {
+                int[] steps = iterator.next().get();
+                if (steps == null || affects(steps, edge, locked)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    // The shared tree for a destination. The first session to ask builds it; the others wait for it.
+    private int[] sharedTree(int destination) {
+        CompletableFuture<int[]> tree = sharedTrees.get(destination);
+        if (tree == null) {
+            CompletableFuture<int[]> building = new CompletableFuture<>();
+            tree = sharedTrees.putIfAbsent(destination, building);
+            if (tree == null) {
+                evictSharedTrees(destination);
+                try {
+                    building.complete(buildTree(destination, null));
+                } catch (RuntimeException | Error e) {
+                    sharedTrees.remove(destination, building);
+                    building.completeExceptionally(e);
+                    throw e;
+                }
+                tree = building;
+            }
+        }
+        return tree.join();
+    }
+
+    private void evictSharedTrees(int keep) {
+        Iterator<Integer> destinations = sharedTrees.keySet().iterator();
+        while (sharedTrees.size() > sharedTreeLimit && destinations.hasNext()) {
+            int destination = destinations.next();
+            if (destination != keep) {
+                destinations.remove(); // Not strictly the oldest, but keeps the cache bounded
+            }
+        }
+    }
+
+    // Whether flipping one edge could change the shortest routes in a tree.
+    // An opened door matters if it makes its room closer; a closed door matters if a route may use it.
+    private boolean affects(int[] steps, int edge, boolean nowLocked) {
+        int from = graph.getSource(edge);
+        int to = graph.getTarget(edge);
+        if (nowLocked) {
+            return steps[from] > 0 && steps[to] == steps[from] - 1;
+        }
+        return steps[to] >= 0 && (steps[from] < 0 || steps[from] > steps[to] + 1);
+    }
+
+    // Breadth-first search backwards from the destination through unlocked doors
+    private int[] buildTree(int destination, BitSet changedLocks) {
+        int roomCount = graph.getRoomCount();
+        int[] steps = new int[roomCount];
+        int[] queue = spareQueues.poll();
+        if (queue == null) {
+            queue = new int[roomCount];
+        }
+        Arrays.fill(steps, -1);
+        int head = 0, tail = 0;
+        steps[destination] = 0;
+        queue[tail++] = destination;
+        while (head < tail) {
+            int room = queue[head++];
+            for (int edge = graph.firstEdge(room); edge < graph.firstEdge(room + 1); edge++) {
+                int neighbour = graph.getTarget(edge);
+                if (steps[neighbour] >= 0) {
+                    continue;
+                }
+                int back = graph.findEdge(neighbour, graph.getDirection(edge) ^ 1); // The door from the neighbour to this room
+                if (back >= 0 && graph.getTarget(back) == room && !graph.isLocked(back, changedLocks)) {
+                    steps[neighbour] = steps[room] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        if (spareQueues.size() < maxSpareQueues) {
+            spareQueues.offer(queue); // Kept by the router rather than per thread, as every player has a thread of their own
+        }
+        return steps;
+    }
+}
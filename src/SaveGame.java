@@ -0,0 +1,566 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+// Saves and loads games in slots, as compact binary files in the directory named by -Dadventure.saves
+// (default "saves"). A save holds only what differs from the world file: the player, the visited rooms,
+// the doors whose lock changed and the rooms the game has changed. Items are stored by their index in
+// the world's item list and enemies by their index in their room's enemy list, so a save stays small
+// however big the world is.
+//
+// The first save in a slot writes a full snapshot (<slot>.save). Later saves write only what changed
+// since that snapshot (<slot>.delta, replaced every time), until the delta would be half as big as the
+// snapshot; then a new snapshot is written and the delta removed. Loading reads the snapshot and applies
+// the delta if it belongs to that snapshot. Files are written to a temporary file and moved into place,
+// so a crash during a save leaves the previous save as it was.
+//
+// Format, with numbers as unsigned LEB128 varints unless a size is given:
+//   header    "AGSV", version (1 byte), kind (1 byte: SNAPSHOT or DELTA), rooms and items in the world;
+//             a DELTA then has the CRC-32C of its snapshot file (4 bytes)
+//   player    length, then health, room, inventory size, the items, and the equipped weapon: 0 for
+//             none, 1 and an item for a weapon not in the inventory, or 2 + its inventory position
+//   visited   bits (see writeBits); in a DELTA, the rooms whose flag differs from the snapshot
+//   locks     bits, the graph edges whose lock differs from the world file (in a DELTA, from the snapshot)
+//   rooms     count, then for each room in id order the id (as the gap from the previous one), a length
+//             and the room: its items, then its enemies as count, index gap and health (zigzag). In a
+//             DELTA the length is one more, and 0 means the room is as the world file has it again.
+//   item      index in WorldTemplate.getItemDefinitions(), followed by the ammo for ranged weapons
+//   trailer   CRC-32C of everything before it (4 bytes), so a damaged file is never loaded
+public final class SaveGame {
+    public static final String SAVES_PROPERTY = "adventure.saves";
+    public static final String DEFAULT_SLOT = "quicksave";
+    public static final String SNAPSHOT_EXTENSION = ".save";
+    public static final String DELTA_EXTENSION = ".delta";
+    public static final int MAGIC = 0x41475356; // "AGSV"
+    public static final int VERSION = 1;
+    public static final int SNAPSHOT = 1, DELTA = 2;
+
+    private static final int BIT_GAPS = 0, BIT_WORDS = 1; // Ways writeBits can store a set
+    private static final Pattern SLOT_NAME = Pattern.compile("[a-z0-9_-]{1,32}");
+
+    // A saved game with the player and every changed room still encoded, so two states can be compared
+    // room by room without building any objects
+    record State(byte[] player, BitSet visited, BitSet locks, TreeMap<Integer, byte[]> rooms) {
+    }
+
+    // What a save or load did; rooms counts the rooms in the files that were written or read
+    public record Result(String slot, boolean delta, int bytes, int rooms, long nanos) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s, %d bytes, %d rooms, %.2f ms",
+                    delta ? "with delta" : "snapshot", bytes, rooms, nanos / 1e6);
+        }
+    }
+
+    private final WorldTemplate world;
+    private final Path directory;
+    private final IdentityHashMap<Item, Integer> itemIds = new IdentityHashMap<>(); // The world's item definitions
+
+    // The snapshot deltas are made against: the last one this game wrote or loaded
+    private String baseSlot;
+    private State base;
+    private int baseChecksum;
+    private int baseBytes;
+
+    public SaveGame(WorldTemplate world, Path directory) {
+        this.world = world;
+        this.directory = directory;
+        List<Item> definitions = world.getItemDefinitions();
+        for (int i = 0; i < definitions.size(); i++) {
+            itemIds.put(definitions.get(i), i);
+        }
+    }
+
+    // The directory named by -Dadventure.saves
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty(SAVES_PROPERTY, "saves"));
+    }
+
+    // Slot names end up in file names, so only short lowercase names are allowed
+    public static boolean isValidSlot(String slot) {
+        return SLOT_NAME.matcher(slot).matches();
+    }
+
+    // Save the game to a slot, as a delta if this game already has a snapshot there
+    public synchronized Result save(String slot, Player player, Map map) throws IOException {
+        long start = System.nanoTime();
+        State state = capture(player, map);
+        Files.createDirectories(directory);
+        if (base != null && slot.equals(baseSlot)) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int rooms = writeDelta(new DataOutputStream(buffer), state);
+            byte[] delta = withChecksum(buffer);
+            if (delta.length <= baseBytes / 2) { // Beyond that a new snapshot costs less to load
+                write(file(slot, DELTA_EXTENSION), delta);
+                return new Result(slot, true, delta.length, rooms, System.nanoTime() - start);
+            }
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        writeSnapshot(new DataOutputStream(buffer), state);
+        byte[] bytes = withChecksum(buffer);
+        write(file(slot, SNAPSHOT_EXTENSION), bytes);
+        Files.deleteIfExists(file(slot, DELTA_EXTENSION)); // Its snapshot is gone
+        remember(slot, state, bytes);
+        return new Result(slot, false, bytes.length, state.rooms().size(), System.nanoTime() - start);
+    }
+
+    // Replace the game's state with a slot's. Nothing changes if the save cannot be read.
+    public synchronized Result load(String slot, Player player, Map map) throws IOException {
+        long start = System.nanoTime();
+        byte[] snapshot = Files.readAllBytes(file(slot, SNAPSHOT_EXTENSION));
+        State state = readSnapshot(snapshot);
+        State loaded = state;
+        int bytes = snapshot.length;
+        int rooms = state.rooms().size();
+        boolean delta = false;
+        Path deltaFile = file(slot, DELTA_EXTENSION);
+        try {
+            byte[] deltaBytes = Files.readAllBytes(deltaFile);
+            loaded = readDelta(deltaBytes, state, checksum(snapshot));
+            bytes += deltaBytes.length;
+            rooms = loaded.rooms().size();
+            delta = true;
+        } catch (NoSuchFileException e) {
+            // Saved once only
+        } catch (IOException e) {
+            GameLog.warn(GameLog.Category.GAME, "Ignoring {}: {}", deltaFile, e.getMessage());
+        }
+        restore(loaded, player, map);
+        remember(slot, state, snapshot);
+        return new Result(slot, delta, bytes, rooms, System.nanoTime() - start);
+    }
+
+    private void remember(String slot, State state, byte[] snapshot) {
+        baseSlot = slot;
+        base = state;
+        baseChecksum = checksum(snapshot);
+        baseBytes = snapshot.length;
+    }
+
+    private Path file(String slot, String extension) {
+        return directory.resolve(slot + extension);
+    }
+
+    // Every write gets its own temporary file, so games saving to the same directory never share one
+    private static void write(Path file, byte[] bytes) throws IOException {
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName() + ".", ".tmp");
+        try {
+            Files.write(temporary, bytes);
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary); // Only still there if the write or move failed
+        }
+    }
+
+    private static int checksum(byte[] bytes) {
+        return checksum(bytes, bytes.length);
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] withChecksum(ByteArrayOutputStream buffer) throws IOException {
+        new DataOutputStream(buffer).writeInt(checksum(buffer.toByteArray()));
+        return buffer.toByteArray();
+    }
+
+    // The file's contents without the trailer, once the trailer has been checked
+    private static ByteBuffer checked(byte[] bytes) throws IOException {
+        int length = bytes.length - 4;
+        if (length < 0 || ByteBuffer.wrap(bytes, length, 4).getInt() != checksum(bytes, length)) {
+            throw new IOException("The save is damaged: wrong checksum");
+        }
+        return ByteBuffer.wrap(bytes, 0, length);
+    }
+
+    // Encode the game as it is now
+    State capture(Player player, Map map) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        writeVarint(out, Math.max(0, player.getHealth()));
+        writeVarint(out, player.getCurrentRoom().getId());
+        List<Item> inventory = player.getInventory();
+        writeVarint(out, inventory.size());
+        int equipped = player.getEquippedWeapon() == null ? 0 : 1;
+        for (int i = 0; i < inventory.size(); i++) {
+            writeItem(out, inventory.get(i));
+            if (inventory.get(i) == player.getEquippedWeapon()) {
+                equipped = 2 + i;
+            }
+        }
+        writeVarint(out, equipped);
+        if (equipped == 1) {
+            writeItem(out, player.getEquippedWeapon()); // Dropped while equipped
+        }
+        byte[] playerBytes = buffer.toByteArray();
+
+        TreeMap<Integer, byte[]> rooms = new TreeMap<>();
+        for (Room room : map.getChangedRooms()) {
+            buffer.reset();
+            writeRoom(out, room);
+            rooms.put(room.getId(), buffer.toByteArray());
+        }
+        return new State(playerBytes, (BitSet) map.getVisitedRooms().clone(), (BitSet) map.getChangedLocks().clone(), rooms);
+    }
+
+    private void writeRoom(DataOutputStream out, Room room) throws IOException {
+        List<Item> items = room.getItems();
+        writeVarint(out, items.size());
+        for (Item item : items) {
+            writeItem(out, item);
+        }
+        // Enemies only ever leave a room, so each one is the next spawn of its name still in the list
+        List<EnemySpawn> spawns = world.getRoom(room.getId()).getEnemies();
+        List<Enemy> enemies = room.getEnemies();
+        writeVarint(out, enemies.size());
+        int next = 0;
+        for (Enemy enemy : enemies) {
+            int spawn = next;
+            while (spawn < spawns.size() && !spawns.get(spawn).name().equals(enemy.getName())) {
+                spawn++;
+            }
+            if (spawn == spawns.size()) {
+                throw new IOException(enemy.getName() + " in " + room.getName() + " is not an enemy of this world");
+            }
+            writeVarint(out, spawn - next);
+            writeVarint(out, (enemy.getHealth() << 1) ^ (enemy.getHealth() >> 31));
+            next = spawn + 1;
+        }
+    }
+
+    private void writeItem(DataOutputStream out, Item item) throws IOException {
+        Integer id = itemIds.get(item.getDefinition()); // Session copies are saved as the item they were made from
+        if (id == null) {
+            throw new IOException(item.getLongName() + " is not an item of this world");
+        }
+        writeVarint(out, id);
+        if (item instanceof RangedWeapon ranged) {
+            writeVarint(out, Math.max(0, ranged.getAmmo()));
+        }
+    }
+
+    private void writeHeader(DataOutputStream out, int kind) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(kind);
+        writeVarint(out, world.getRoomCount());
+        writeVarint(out, world.getItemDefinitions().size());
+    }
+
+    private void writeSnapshot(DataOutputStream out, State state) throws IOException {
+        writeHeader(out, SNAPSHOT);
+        writeBytes(out, state.player());
+        writeBits(out, state.visited());
+        writeBits(out, state.locks());
+        writeVarint(out, state.rooms().size());
+        int previous = 0;
+        for (java.util.Map.Entry<Integer, byte[]> room : state.rooms().entrySet()) {
+            writeVarint(out, room.getKey() - previous);
+            writeBytes(out, room.getValue());
+            previous = room.getKey();
+        }
+    }
+
+    // Write what differs from the base snapshot, and return how many rooms that is
+    private int writeDelta(DataOutputStream out, State state) throws IOException {
+        writeHeader(out, DELTA);
+        out.writeInt(baseChecksum);
+        writeBytes(out, state.player()); // A few bytes, always written
+        writeBits(out, difference(base.visited(), state.visited()));
+        writeBits(out, difference(base.locks(), state.locks()));
+
+        TreeSet<Integer> ids = new TreeSet<>(base.rooms().keySet());
+        ids.addAll(state.rooms().keySet());
+        List<Integer> changed = new ArrayList<>();
+        for (int id : ids) {
+            if (!Arrays.equals(base.rooms().get(id), state.rooms().get(id))) {
+                changed.add(id);
+            }
+        }
+        writeVarint(out, changed.size());
+        int previous = 0;
+        for (int id : changed) {
+            writeVarint(out, id - previous);
+            byte[] room = state.rooms().get(id);
+            if (room == null) {
+                writeVarint(out, 0); // Back to how the world file has it
+            } else {
+                writeVarint(out, room.length + 1);
+                out.write(room);
+            }
+            previous = id;
+        }
+        return changed.size();
+    }
+
+    private static BitSet difference(BitSet a, BitSet b) {
+        BitSet difference = (BitSet) a.clone();
+        difference.xor(b);
+        return difference;
+    }
+
+    private State readSnapshot(byte[] bytes) throws IOException {
+        try {
+            ByteBuffer in = checked(bytes);
+            readHeader(in, SNAPSHOT);
+            byte[] player = readBytes(in, (int) readVarint(in));
+            BitSet visited = readBits(in, world.getRoomCount());
+            BitSet locks = readBits(in, world.getGraph().getEdgeCount());
+            TreeMap<Integer, byte[]> rooms = new TreeMap<>();
+            long count = readVarint(in);
+            int id = 0;
+            for (long i = 0; i < count; i++) {
+                id = readRoomId(in, id);
+                rooms.put(id, readBytes(in, (int) readVarint(in)));
+            }
+            return new State(player, visited, locks, rooms);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("The save is damaged", e);
+        }
+    }
+
+    private State readDelta(byte[] bytes, State snapshot, int snapshotChecksum) throws IOException {
+        try {
+            ByteBuffer in = checked(bytes);
+            readHeader(in, DELTA);
+            if (in.getInt() != snapshotChecksum) {
+                throw new IOException("The delta belongs to an older snapshot");
+            }
+            byte[] player = readBytes(in, (int) readVarint(in));
+            BitSet visited = readBits(in, world.getRoomCount());
+            visited.xor(snapshot.visited());
+            BitSet locks = readBits(in, world.getGraph().getEdgeCount());
+            locks.xor(snapshot.locks());
+            TreeMap<Integer, byte[]> rooms = new TreeMap<>(snapshot.rooms());
+            long count = readVarint(in);
+            int id = 0;
+            for (long i = 0; i < count; i++) {
+                id = readRoomId(in, id);
+                int length = (int) readVarint(in);
+                if (length == 0) {
+                    rooms.remove(id);
+                } else {
+                    rooms.put(id, readBytes(in, length - 1));
+                }
+            }
+            return new State(player, visited, locks, rooms);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("The save is damaged", e);
+        }
+    }
+
+    private void readHeader(ByteBuffer in, int kind) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a saved game");
+        }
+        int version = in.get() & 0xff;
+        if (version != VERSION) {
+            throw new IOException("Unsupported save version " + version);
+        }
+        if ((in.get() & 0xff) != kind) {
+            throw new IOException("Not a " + (kind == SNAPSHOT ? "snapshot" : "delta"));
+        }
+        if (readVarint(in) != world.getRoomCount() || readVarint(in) != world.getItemDefinitions().size()) {
+            throw new IOException("The save belongs to another world");
+        }
+    }
+
+    private int readRoomId(ByteBuffer in, int previous) throws IOException {
+        long id = previous + readVarint(in);
+        if (id >= world.getRoomCount()) {
+            throw new IOException("The save is damaged: no room " + id);
+        }
+        return (int) id;
+    }
+
+    // Decode a state and put it into the game. Everything is decoded and checked before the game is touched.
+    private void restore(State state, Player player, Map map) throws IOException {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(state.player());
+            int health = (int) readVarint(in);
+            int room = (int) readVarint(in);
+            if (room >= world.getRoomCount()) {
+                throw new IOException("The save is damaged: no room " + room);
+            }
+            List<Item> inventory = new ArrayList<>();
+            for (long i = readVarint(in); i > 0; i--) {
+                inventory.add(readItem(in));
+            }
+            long equipped = readVarint(in);
+            Item weapon = equipped == 0 ? null : equipped == 1 ? readItem(in) : inventory.get((int) (equipped - 2));
+            if (weapon != null && !(weapon instanceof Weapon)) {
+                throw new IOException("The save is damaged: " + weapon.getLongName() + " is not a weapon");
+            }
+
+            List<Integer> ids = new ArrayList<>(state.rooms().size());
+            List<List<Item>> roomItems = new ArrayList<>(state.rooms().size());
+            List<List<Enemy>> roomEnemies = new ArrayList<>(state.rooms().size());
+            for (java.util.Map.Entry<Integer, byte[]> entry : state.rooms().entrySet()) {
+                ByteBuffer roomIn = ByteBuffer.wrap(entry.getValue());
+                List<Item> items = new ArrayList<>();
+                for (long i = readVarint(roomIn); i > 0; i--) {
+                    items.add(readItem(roomIn));
+                }
+                List<EnemySpawn> spawns = world.getRoom(entry.getKey()).getEnemies();
+                List<Enemy> enemies = new ArrayList<>();
+                int next = 0;
+                for (long i = readVarint(roomIn); i > 0; i--) {
+                    int spawn = next + (int) readVarint(roomIn);
+                    long zigzag = readVarint(roomIn);
+                    Enemy enemy = spawns.get(spawn).spawn();
+                    enemy.takeDamage(enemy.getHealth() - (int) ((zigzag >>> 1) ^ -(zigzag & 1)));
+                    enemies.add(enemy);
+                    next = spawn + 1;
+                }
+                ids.add(entry.getKey());
+                roomItems.add(items);
+                roomEnemies.add(enemies);
+            }
+
+            map.restore(state.visited(), state.locks());
+            for (int i = 0; i < ids.size(); i++) {
+                map.getRoom(ids.get(i)).restore(roomItems.get(i), roomEnemies.get(i));
+            }
+            player.restore(map.getRoom(room), health, inventory, (Weapon) weapon);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("The save is damaged", e);
+        }
+    }
+
+    private Item readItem(ByteBuffer in) throws IOException {
+        long id = readVarint(in);
+        if (id >= world.getItemDefinitions().size()) {
+            throw new IOException("The save is damaged: no item " + id);
+        }
+        Item item = world.getItemDefinitions().get((int) id).instantiate();
+        if (item instanceof RangedWeapon ranged) {
+            ranged.setAmmo((int) readVarint(in));
+        }
+        return item;
+    }
+
+    // A set of small numbers, as a kind byte and either the gaps between set bits (good for sparse sets)
+    // or the set's 64-bit words (good for dense ones), whichever is shorter
+    private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        long[] words = bits.toLongArray();
+        int gapBytes = varintSize(bits.cardinality());
+        int previous = 0;
+        for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1)) {
+            gapBytes += varintSize(bit - previous);
+            previous = bit;
+        }
+        if (gapBytes <= varintSize(words.length) + words.length * 8) {
+            out.writeByte(BIT_GAPS);
+            writeVarint(out, bits.cardinality());
+            previous = 0;
+            for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1)) {
+                writeVarint(out, bit - previous);
+                previous = bit;
+            }
+        } else {
+            out.writeByte(BIT_WORDS);
+            writeVarint(out, words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    private static BitSet readBits(ByteBuffer in, int limit) throws IOException {
+        BitSet bits = new BitSet();
+        int kind = in.get() & 0xff;
+        if (kind == BIT_GAPS) {
+            long bit = 0;
+            for (long i = readVarint(in); i > 0; i--) {
+                bit += readVarint(in);
+                if (bit >= limit) {
+                    throw new IOException("The save is damaged: bit " + bit + " of " + limit);
+                }
+                bits.set((int) bit);
+            }
+        } else if (kind == BIT_WORDS) {
+            long count = readVarint(in);
+            if (count > (limit + 63) / 64) {
+                throw new IOException("The save is damaged: " + count + " words for " + limit + " bits");
+            }
+            long[] words = new long[(int) count];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.getLong();
+            }
+            bits = BitSet.valueOf(words);
+            if (bits.length() > limit) {
+                throw new IOException("The save is damaged: bit " + (bits.length() - 1) + " of " + limit);
+            }
+        } else {
+            throw new IOException("The save is damaged: unknown bit set kind " + kind);
+        }
+        return bits;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuffer in, int length) {
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7fL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xff;
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("The save is damaged: number too long");
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load driver for GameServer that runs entirely on loopback.
+// Usage: java ServerLoadTest [players] [rounds]
+public class ServerLoadTest {
+    // Commands every simulated player sends each round
+    private static final String[] SCRIPT = {
+            "look", "inventory", "health", "equip wooden sword", "show map", "help", "take apple", "drop apple"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        try (GameServer server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.start();
+            InetSocketAddress address = server.getAddress();
+
+            CountDownLatch connected = new CountDownLatch(players);
+            CountDownLatch done = new CountDownLatch(players);
+            AtomicLong failures = new AtomicLong();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < players; i++) {
+                Thread.ofVirtual().start(() -> {
+                    boolean counted = false; // Whether this player has been counted as connected
+                    try (SocketChannel channel = SocketChannel.open(address)) {
+                        ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+                        readUntilPrompt(channel, in); // Welcome text
+                        connected.countDown();
+                        counted = true;
+                        for (int round = 0; round < rounds; round++) {
+                            for (String command : SCRIPT) {
+                                channel.write(StandardCharsets.UTF_8.encode(command + "\r\n"));
+                                readUntilPrompt(channel, in);
+                            }
+                        }
+                        channel.write(StandardCharsets.UTF_8.encode("exit\r\n"));
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                        if (!counted) {
+                            connected.countDown(); // Never connected, but connected.await() must not wait for it
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            connected.await();
+            long connectedAt = System.nanoTime();
+            done.await();
+            long end = System.nanoTime();
+
+            double connectSeconds = (connectedAt - start) / 1e9;
+            double totalSeconds = (end - start) / 1e9;
+            long commands = (long) players * rounds * SCRIPT.length;
+            System.out.printf("Players: %d, failures: %d%n", players, failures.get());
+            System.out.printf("Connections/s: %.0f (%.3f s to connect everyone)%n", players / connectSeconds, connectSeconds);
+            System.out.printf("Commands/s: %.0f (%d commands in %.3f s)%n", commands / totalSeconds, commands, totalSeconds);
+        }
+    }
+
+    // Read server output until the prompt appears at the end of what we have received
+    private static void readUntilPrompt(SocketChannel channel, ByteBuffer in) throws IOException {
+        in.clear();
+        while (true) {
+            if (channel.read(in) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+            int end = in.position();
+            if (end >= 2 && in.get(end - 2) == '>' && in.get(end - 1) == ' ') {
+                return;
+            }
+            if (!in.hasRemaining()) {
+                in.clear(); // Only the tail matters
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import javax.sound.sampled.*;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Sound effects decoded once and kept in memory, ready to mix.
+//
+// Every effect is converted to one format (16 bit stereo at 44.1 kHz, which every mixer accepts)
+// when it is loaded, so playing it never touches the disk or a decoder. The AudioEngine plays the
+// samples directly; the cache is shared by every SoundManager in the process.
+public class SoundCache {
+    public static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false); // Signed little-endian PCM
+
+    private final Map<String, byte[]> samples = new ConcurrentHashMap<>(); // Sound name -> decoded frames in FORMAT
+
+    // Decode a sound asset, unless a sound with that name is already cached
+    public void load(String soundName, String assetName) throws IOException, UnsupportedAudioFileException {
+        if (samples.containsKey(soundName)) {
+            return;
+        }
+        try (AudioInputStream stream = AudioSystem.getAudioInputStream(Assets.open(assetName))) {
+            samples.put(soundName, decode(stream, FORMAT));
+        }
+    }
+
+    public boolean contains(String soundName) {
+        return samples.containsKey(soundName);
+    }
+
+    // Decoded frames of a sound, in FORMAT, or null if it was not loaded
+    public byte[] getSamples(String soundName) {
+        return samples.get(soundName);
+    }
+
+    // Read a whole stream and convert it to the given 16 bit signed little-endian format. Java Sound
+    // converts the encoding; the sample rate and channel count are converted here, by interpolation.
+    static byte[] decode(AudioInputStream stream, AudioFormat target) throws IOException, UnsupportedAudioFileException {
+        AudioFormat source = stream.getFormat();
+        AudioFormat pcm = new AudioFormat(source.getSampleRate(), 16, source.getChannels(), true, false);
+        AudioInputStream pcmStream = stream;
+        if (!source.matches(pcm)) {
+            if (!AudioSystem.isConversionSupported(pcm, source)) {
+                throw new UnsupportedAudioFileException("Cannot convert " + source + " to PCM");
+            }
+            pcmStream = AudioSystem.getAudioInputStream(pcm, stream);
+        }
+        byte[] data = pcmStream.readAllBytes();
+        if (pcm.getSampleRate() == target.getSampleRate() && pcm.getChannels() == target.getChannels()) {
+            return data;
+        }
+        return resample(data, pcm.getChannels(), pcm.getSampleRate(), target.getChannels(), target.getSampleRate());
+    }
+
+    // Linear interpolation between neighbouring frames. A mono source is copied to every channel;
+    // a mono target gets the average of the source channels.
+    static byte[] resample(byte[] data, int sourceChannels, float sourceRate, int targetChannels, float targetRate) {
+        int sourceFrames = data.length / (2 * sourceChannels);
+        int targetFrames = (int) ((long) sourceFrames * (long) targetRate / (long) sourceRate);
+        byte[] result = new byte[targetFrames * targetChannels * 2];
+        double step = sourceRate / targetRate;
+        for (int frame = 0; frame < targetFrames; frame++) {
+            double position = frame * step;
+            int before = (int) position;
+            int after = Math.min(before + 1, sourceFrames - 1);
+            double weight = position - before;
+            for (int channel = 0; channel < targetChannels; channel++) {
+                double value;
+                if (targetChannels == 1 && sourceChannels > 1) {
+                    value = 0;
+                    for (int c = 0; c < sourceChannels; c++) {
+                        value += interpolate(data, sourceChannels, c, before, after, weight);
+                    }
+                    value /= sourceChannels;
+                } else {
+                    value = interpolate(data, sourceChannels, Math.min(channel, sourceChannels - 1), before, after, weight);
+                }
+                int sample = (int) Math.round(value);
+                int offset = (frame * targetChannels + channel) * 2;
+                result[offset] = (byte) sample;
+                result[offset + 1] = (byte) (sample >> 8);
+            }
+        }
+        return result;
+    }
+
+    private static double interpolate(byte[] data, int channels, int channel, int before, int after, double weight) {
+        int a = sample(data, (before * channels + channel) * 2);
+        int b = sample(data, (after * channels + channel) * 2);
+        return a + (b - a) * weight;
+    }
+
+    // Read one 16 bit signed little-endian sample
+    static int sample(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] << 8);
+    }
+}
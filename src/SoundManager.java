@@ -1,128 +1,122 @@
 import javax.sound.sampled.*;
-import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+// Game-facing front of the audio: names the sounds and decides how important each one is, then
+// hands them to an AudioBackend. With the mixer backend every SoundManager plays through the same
+// AudioEngine and shares its decoded sounds.
 public class SoundManager {
-    private Map<String, String> soundFiles; // To map sound names to file paths
-    private Clip themeClip;                 // Clip to store background theme music
+    public static final int PRIORITY_LOW = 0;    // Frequent feedback, fine to cut off
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_HIGH = 2;   // Rare cues that should always be heard
 
-    private final float EFFECTS_VOLUME = 0.0f;  // Volume in decibels for sound effects
-    private final float THEME_VOLUME = -20.0f;    // Lower volume for theme music
+    private Map<String, String> soundFiles; // To map sound names to asset names
+    private Map<String, Integer> priorities; // Sound name -> voice priority
+    private final AudioBackend backend; // Where the sounds go
 
+    private final float EFFECTS_VOLUME = 0.0f;  // Gain of the effects bus in decibels
+    private final float THEME_VOLUME = -20.0f;    // Lower gain for the music bus
+    private final int THEME_CROSSFADE_MILLIS = 2000; // Overlap when the theme changes
+
+    // Sound manager on the backend detected for this machine
     public SoundManager() {
+        this(AudioBackend.detect());
+    }
+
+    public SoundManager(AudioBackend backend) {
+        this.backend = backend;
         soundFiles = new HashMap<>();
+        priorities = new HashMap<>();
+        backend.setBusGain(AudioEngine.Bus.EFFECTS, EFFECTS_VOLUME);
+        backend.setBusGain(AudioEngine.Bus.MUSIC, THEME_VOLUME);
         loadSounds(); // Automatically load sounds when initializing
     }
 
     // Method to load sound files into the manager
     private void loadSounds() {
         try {
-            loadSound("start", "resources/sounds/start_sound.wav"); // Sound Effect
-            loadSound("move", "resources/sounds/move_sound.wav");   // Sound Effect
-            loadSound("unlock", "resources/sounds/unlock_sound.wav"); // Sound Effect
-            loadSound("look", "resources/sounds/look_sound.wav");   // Sound Effect
-            loadSound("win", "resources/sounds/win_sound.wav");     // Sound Effect
-            loadSound("theme", "resources/sounds/theme_music.wav"); // Theme music
+            loadSound("start", "sounds/start_sound.wav", PRIORITY_HIGH);    // Sound Effect
+            loadSound("move", "sounds/move_sound.wav", PRIORITY_LOW);       // Sound Effect
+            loadSound("unlock", "sounds/unlock_sound.wav", PRIORITY_NORMAL); // Sound Effect
+            loadSound("look", "sounds/look_sound.wav", PRIORITY_LOW);       // Sound Effect
+            loadSound("win", "sounds/win_sound.wav", PRIORITY_HIGH);        // Sound Effect
+            loadSound("theme", "sounds/theme_music.wav");                  // Theme music
         } catch (Exception e) {
-            System.err.println("Error loading sounds: " + e.getMessage());
+            GameLog.error(GameLog.Category.SOUND, "Error loading sounds: {}", e);
         }
     }
 
-    // Load a sound file into the manager
-    public void loadSound(String soundName, String filePath) {
-        soundFiles.put(soundName, filePath);
-        System.out.println("Loaded sound: " + soundName + " from " + filePath); // For debugging
+    // Load a sound into the manager with normal priority
+    public void loadSound(String soundName, String assetName) {
+        loadSound(soundName, assetName, PRIORITY_NORMAL);
     }
 
-    public void playSoundEffect(String soundName) {
-        String filePath = soundFiles.get(soundName);
-        System.out.println("Requested sound: " + soundName + " with path: " + filePath); // Debug line
-        if (filePath != null) {
-            try {
-                File soundFile = new File(filePath);
-                System.out.println("Absolute path: " + soundFile.getAbsolutePath()); // Debug line
-                if (!soundFile.exists()) {
-                    System.err.println("Sound file does not exist: " + soundFile.getAbsolutePath());
-                    return; // Exit if the file doesn't exist
-                }
-
-                AudioInputStream audioStream = AudioSystem.getAudioInputStream(soundFile);
-                Clip clip = AudioSystem.getClip();
-                clip.open(audioStream);
-                setVolume(clip, EFFECTS_VOLUME);
-                clip.start();
-                System.out.println("Playing sound effect: " + soundName);
-                clip.addLineListener(event -> {
-                    if (event.getType() == LineEvent.Type.STOP) {
-                        clip.close();
-                    }
-                });
-            } catch (IOException e) {
-                System.err.println("I/O error while playing sound effect: " + soundName + " - " + e.getMessage());
-            } catch (UnsupportedAudioFileException e) {
-                System.err.println("Unsupported audio file format for sound effect: " + soundName + " - " + e.getMessage());
-            } catch (LineUnavailableException e) {
-                System.err.println("Line unavailable while playing sound effect: " + soundName + " - " + e.getMessage());
-            } catch (Exception e) {
-                System.err.println("Unexpected error while playing sound effect: " + soundName + " - " + e.getMessage());
-                e.printStackTrace(); // Detailed exception for any unexpected issues
-            }
-        } else {
-            System.err.println("Sound effect not found: " + soundName);
+    // Load a sound asset (e.g. "sounds/move_sound.wav") into the manager. Effects are decoded once per
+    // process; names starting with "theme" are music tracks, read while they play.
+    public void loadSound(String soundName, String assetName, int priority) {
+        soundFiles.put(soundName, assetName);
+        priorities.put(soundName, priority);
+        if (soundName.startsWith("theme")) {
+            return; // Music tracks are streamed when they play
+        }
+        if (!Assets.exists(assetName)) {
+            GameLog.warn(GameLog.Category.SOUND, "Sound asset does not exist: {} in {}", assetName, Assets.getRoot());
+            return;
+        }
+        try {
+            backend.load(soundName, assetName);
+            GameLog.debug(GameLog.Category.SOUND, "Loaded sound: {} from {}", soundName, assetName);
+        } catch (IOException e) {
+            GameLog.error(GameLog.Category.SOUND, "I/O error while loading sound effect: {} - {}", soundName, e);
+        } catch (UnsupportedAudioFileException e) {
+            GameLog.error(GameLog.Category.SOUND, "Unsupported audio file format for sound effect: {} - {}", soundName, e);
         }
     }
 
+    // Play a sound effect from the cache; no file is opened here
+    public void playSoundEffect(String soundName) {
+        if (!soundFiles.containsKey(soundName)) {
+            GameLog.warn(GameLog.Category.SOUND, "Sound effect not found: {}", soundName);
+        } else if (backend.play(soundName, priorities.get(soundName))) {
+            GameLog.debug(GameLog.Category.SOUND, "Playing sound effect: {}", soundName);
+        }
+    }
 
-    // Start the background theme music
+    // Start the background theme music, streamed from its file
     public void startTheme() {
         String themeFile = soundFiles.get("theme");
         if (themeFile != null) {
-            try {
-                File theme = new File(themeFile);
-                AudioInputStream audioStream = AudioSystem.getAudioInputStream(theme);
-                themeClip = AudioSystem.getClip();
-                themeClip.open(audioStream);
-                setVolume(themeClip, THEME_VOLUME);  // Setting theme music volume
-                themeClip.loop(Clip.LOOP_CONTINUOUSLY); // Loop the theme music
-                themeClip.start();
-                System.out.println("Starting theme music.");
-            } catch (IOException | UnsupportedAudioFileException | LineUnavailableException e) {
-                System.err.println("Error playing theme music: " + e.getMessage());
-            }
+            backend.playMusic(themeFile, 0);
+            GameLog.debug(GameLog.Category.SOUND, "Starting theme music.");
         } else {
-            System.err.println("Theme music file not found.");
+            GameLog.warn(GameLog.Category.SOUND, "Theme music file not found.");
         }
     }
 
-    // Method to set volume for a given clip (volume in decibels)
-    private void setVolume(Clip clip, float volume) {
-        if (clip != null && clip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-            FloatControl volumeControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-            volumeControl.setValue(volume);  // Set the volume (in decibels)
+    // Crossfade to another loaded track, e.g. the music of a new area
+    public void switchTheme(String trackName) {
+        String trackFile = soundFiles.get(trackName);
+        if (trackFile != null) {
+            backend.playMusic(trackFile, THEME_CROSSFADE_MILLIS);
         } else {
-            System.err.println("Volume control not supported.");
+            GameLog.warn(GameLog.Category.SOUND, "Theme track not found: {}", trackName);
         }
     }
 
-    // Stop and close theme music
+    // Stop theme music
     public void stopTheme() {
-        if (themeClip != null && themeClip.isRunning()) {
-            themeClip.stop();
-            themeClip.close();
-            //System.out.println("Theme music stopped.");
-        }
+        backend.stopMusic();
     }
 
-    // Close sound manager and release resources
-    public void close() {
-        if (themeClip != null && themeClip.isOpen()) {
-            themeClip.stop();
-            themeClip.close();
-        }
-        System.out.println("Closing SoundManager and releasing resources.");
-
+    public AudioBackend getBackend() {
+        return backend;
+    }
 
+    // Stop everything this game is playing. The backend itself stays up for the rest of the process.
+    public void close() {
+        backend.stopMusic();
+        backend.stopEffects();
+        GameLog.debug(GameLog.Category.SOUND, "Closing SoundManager and releasing resources.");
     }
 }
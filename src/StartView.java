@@ -1,22 +1,29 @@
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.CompletableFuture;
 
 public class StartView {
     private JFrame frame; // Main application window
     private JTextArea ansiArtArea; // Area to display ANSI art
-    private SoundManager soundManager; // Sound manager instance
-    private GameController gameController; // Reference to GameController
+    private final CompletableFuture<SoundManager> soundManager; // Sound manager instance, decoding in the background
+    private final CompletableFuture<Map> world; // Game world, loading in the background
+    private GameController gameController; // Reference to GameController, created when the game starts
     private UserInterface ui; // Reference to UserInterface
 
     // Constructor to set up the full-screen window
     public StartView() {
-        ui = new UserInterface(); // Create UserInterface instance
-        gameController = new GameController(ui); // Initialize GameController with UserInterface
-        ui.setGameController(gameController); // Set GameController in UserInterface
-        soundManager = new SoundManager();
-
-        initializeUI(); // Initialize the user interface
-        soundManager.startTheme(); // Start the theme music with lower volume
+        // Sounds and the world load in the background while the windows are built
+        soundManager = StartupProfiler.startAsync("sounds", SoundManager::new); // One sound manager for the start screen and the game
+        world = StartupProfiler.startAsync("world", Map::new);
+        ui = StartupProfiler.time("game window", UserInterface::new); // Create UserInterface instance
+
+        if (StartupProfiler.isFastMode()) {
+            startGame(); // No start screen
+            return;
+        }
+        StartupProfiler.time("start screen", this::initializeUI); // Initialize the user interface
+        soundManager.thenAccept(SoundManager::startTheme); // Start the theme music with lower volume as soon as it is ready
+        StartupProfiler.waitingForPlayer();
     }
 
     // Static method to start the StartView
@@ -88,15 +95,23 @@ public class StartView {
 
     // Method to start the game
     private void startGame() {
+        StartupProfiler.playerStarted();
+
+        // The game needs the world and the sounds now; they have normally finished loading long before
+        gameController = StartupProfiler.time("game controller",
+                () -> new GameController(ui, world.join(), soundManager.join())); // Initialize GameController with UserInterface
+        ui.setGameController(gameController); // Set GameController in UserInterface
+
         // Play the start sound effect
-        soundManager.playSoundEffect("start");
+        soundManager.join().playSoundEffect("start");
 
-        // Stop the theme music when the game starts
-        soundManager.stopTheme();
+        // The theme music keeps playing into the game
 
         // Proceed with the game
-        frame.dispose(); // Close the start screen
-        gameController.startGame(); // Call the method to start the game
+        if (frame != null) {
+            frame.dispose(); // Close the start screen
+        }
+        ui.startGame(); // Show the intro screens and start the game
     }
 
     // Method to show instructions
@@ -0,0 +1,106 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// Times the phases of startup, from the moment the process started to the first prompt.
+//
+// Phases may run on any thread and overlap; each one is recorded with when it started, how long it
+// took and the thread it ran on. When the game first asks the player for a command, the time to
+// first prompt is logged, leaving out any time the start screen spent waiting for a click, with
+// the phases at debug level. Fast mode (-Dadventure.fast=true, or --fast) skips the start screen and
+// the lore and loading animations.
+public final class StartupProfiler {
+    public static final String FAST_PROPERTY = "adventure.fast";
+
+    private record Phase(String name, long start, long duration, String thread) {
+    }
+
+    private static final long CLASS_LOADED = System.nanoTime();
+    private static final ConcurrentLinkedQueue<Phase> phases = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean reported = new AtomicBoolean();
+    private static volatile long waitingSince = -1; // Start screen shown, waiting for the player
+    private static volatile long waited;            // Total time spent waiting for the player
+
+    private StartupProfiler() {
+    }
+
+    public static boolean isFastMode() {
+        return Boolean.getBoolean(FAST_PROPERTY);
+    }
+
+    // Run a phase on this thread and record how long it took
+    public static <T> T time(String name, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(name, start);
+        }
+    }
+
+    public static void time(String name, Runnable work) {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            record(name, start);
+        }
+    }
+
+    // Run a phase in the background, alongside whatever starts up next
+    public static <T> CompletableFuture<T> startAsync(String name, Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> time(name, work));
+    }
+
+    // The start screen is up and the clock should not count until the player starts the game
+    public static void waitingForPlayer() {
+        waitingSince = System.nanoTime();
+    }
+
+    public static void playerStarted() {
+        long since = waitingSince;
+        if (since >= 0) {
+            waited += System.nanoTime() - since;
+            waitingSince = -1;
+        }
+    }
+
+    // The game is ready for its first command. Only the first call reports.
+    public static void firstPrompt() {
+        if (!reported.compareAndSet(false, true)) {
+            return;
+        }
+        long now = System.nanoTime();
+        long origin = processStart(); // Looked up only now, so its cost is not part of what it measures
+        double total = (now - origin - waited) / 1e6;
+        if (GameLog.isEnabled(GameLog.Category.UI, GameLog.Level.INFO)) {
+            GameLog.info(GameLog.Category.UI, "{}", String.format(Locale.ROOT, "Time to first prompt: %.0f ms%s%s", total,
+                    waited > 0 ? String.format(Locale.ROOT, " (plus %.0f ms on the start screen)", waited / 1e6) : "",
+                    isFastMode() ? " in fast mode" : ""));
+        }
+        if (GameLog.isEnabled(GameLog.Category.UI, GameLog.Level.DEBUG)) { // Phases are formatted only when wanted
+            for (Phase phase : phases) {
+                GameLog.debug(GameLog.Category.UI, "{}", String.format(Locale.ROOT, "  %-16s starts at %7.1f ms, takes %7.1f ms on %s",
+                        phase.name(), (phase.start() - origin) / 1e6, phase.duration() / 1e6, phase.thread()));
+            }
+        }
+    }
+
+    private static void record(String name, long start) {
+        phases.add(new Phase(name, start, System.nanoTime() - start, Thread.currentThread().getName()));
+    }
+
+    // Where nanoTime stood when the JVM started, worked back from its uptime. The operating system's
+    // process start time is not used: on some machines it is hundreds of milliseconds off.
+    private static long processStart() {
+        try {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            return System.nanoTime() - uptime * 1_000_000L;
+        } catch (SecurityException | UnsupportedOperationException e) {
+            return CLASS_LOADED; // Fall back to the first use of this class
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import java.util.BitSet;
+
+// 64-bit FNV-1a hash of a game's state, built up field by field. The same state always gives the same
+// value, on any machine and in any run, so it can be stored and compared later (see CommandRecorder).
+public final class StateHash {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    public StateHash add(int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * PRIME;
+        }
+        return this;
+    }
+
+    public StateHash add(long value) {
+        return add((int) value).add((int) (value >>> 32));
+    }
+
+    // Strings are length-prefixed so "ab" + "c" and "a" + "bc" differ; null counts as its own value
+    public StateHash add(String value) {
+        if (value == null) {
+            return add(-1);
+        }
+        add(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * PRIME;
+            hash = (hash ^ (c >>> 8)) * PRIME;
+        }
+        return this;
+    }
+
+    public StateHash add(BitSet bits) {
+        long[] words = bits.toLongArray(); // Trailing zero words are left out, so equal sets hash equally
+        add(words.length);
+        for (long word : words) {
+            add(word);
+        }
+        return this;
+    }
+
+    public long value() {
+        return hash;
+    }
+}
@@ -0,0 +1,230 @@
+import javax.sound.sampled.*;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Background music streamed from its asset instead of being loaded whole.
+//
+// The AudioEngine's mixer thread pulls a chunk at a time through mix, which decodes a few thousand
+// frames ahead and converts them to SoundCache.FORMAT, so the memory used is the same however long
+// the track is. At the end of the asset the track is reopened and reading continues into the same
+// buffer, which makes the loop seamless. switchTrack fades the playing track out while the new one
+// fades in.
+public class ThemeStreamer {
+    private static final int MAX_CHUNK_FRAMES = 4096; // Largest chunk mix accepts
+    private static final int CHANNELS = 2;            // SoundCache.FORMAT is stereo
+
+    // Requests from other threads, picked up by the mixer thread before each chunk
+    private volatile String requestedTrack; // Asset name
+    private volatile int requestedFadeFrames;
+
+    // Owned by the thread that calls mix
+    private Track current;
+    private Track next;         // Fading in while current fades out
+    private int fadeFrames;     // Length of the crossfade
+    private int fadePosition;   // Frames of the crossfade already played
+    private final float[] scratch = new float[MAX_CHUNK_FRAMES * CHANNELS];
+
+    // Start playing a track, replacing any track at once
+    public void play(String track) {
+        switchTrack(track, 0);
+    }
+
+    // Change to another track, crossfading over the given time. Does nothing if it is already playing.
+    public void switchTrack(String track, int crossfadeMillis) {
+        requestedFadeFrames = (int) (crossfadeMillis * SoundCache.FORMAT.getSampleRate() / 1000);
+        requestedTrack = track;
+    }
+
+    // Stop the music; its stream is closed by the mixer thread
+    public void stop() {
+        requestedTrack = null;
+    }
+
+    public boolean isPlaying() {
+        return requestedTrack != null;
+    }
+
+    // Add the next frames of the music to a stereo buffer. Called by the mixer thread only.
+    void mix(float[] out, int frames) {
+        String track = requestedTrack;
+        if (track == null) {
+            closeTracks();
+            return;
+        }
+        if ((current == null || !track.equals(current.name)) && (next == null || !track.equals(next.name))) {
+            startTrack(track, requestedFadeFrames);
+        }
+        if (current == null) {
+            return;
+        }
+        if (next == null) {
+            current.read(scratch, frames);
+            for (int i = 0; i < frames * CHANNELS; i++) {
+                out[i] += scratch[i];
+            }
+            return;
+        }
+
+        // Crossfade: current fades out while next fades in
+        current.read(scratch, frames);
+        for (int frame = 0; frame < frames; frame++) {
+            float fadeOut = 1f - Math.min(1f, (float) (fadePosition + frame) / fadeFrames);
+            out[frame * 2] += scratch[frame * 2] * fadeOut;
+            out[frame * 2 + 1] += scratch[frame * 2 + 1] * fadeOut;
+        }
+        next.read(scratch, frames);
+        for (int frame = 0; frame < frames; frame++) {
+            float fadeIn = Math.min(1f, (float) (fadePosition + frame) / fadeFrames);
+            out[frame * 2] += scratch[frame * 2] * fadeIn;
+            out[frame * 2 + 1] += scratch[frame * 2 + 1] * fadeIn;
+        }
+        fadePosition += frames;
+        if (fadePosition >= fadeFrames) {
+            current.close();
+            current = next;
+            next = null;
+        }
+    }
+
+    private void startTrack(String track, int crossfade) {
+        Track opened = Track.open(track);
+        if (opened == null) {
+            requestedTrack = current != null ? current.name : null; // Keep playing what we have
+            return;
+        }
+        if (current == null || crossfade <= 0) {
+            closeTracks();
+            current = opened;
+        } else {
+            if (next != null) {
+                current.close(); // A switch during a crossfade: drop the track that was fading out
+                current = next;
+            }
+            next = opened;
+            fadeFrames = crossfade;
+            fadePosition = 0;
+        }
+    }
+
+    private void closeTracks() {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+        if (next != null) {
+            next.close();
+            next = null;
+        }
+    }
+
+    // One track being decoded, reopened at its end so it loops. Frames are converted to the
+    // rate of SoundCache.FORMAT as they are read, interpolating between neighbouring frames.
+    static final class Track {
+        private static final int READ_FRAMES = 4096;
+
+        final String name;               // Asset name
+        private AudioInputStream stream; // 16 bit signed little-endian at the track's own rate
+        private final int channels;
+        private final double step;       // Source frames per output frame
+        private final byte[] raw;
+        private int rawFrames, rawIndex;
+        private final int[] previous, following; // The two source frames the output lies between
+        private double phase;            // Position between previous (0) and following (1)
+        private boolean failed;
+
+        private Track(String name, AudioInputStream stream) {
+            this.name = name;
+            this.stream = stream;
+            AudioFormat format = stream.getFormat();
+            channels = format.getChannels();
+            step = format.getSampleRate() / SoundCache.FORMAT.getSampleRate();
+            raw = new byte[READ_FRAMES * channels * 2];
+            previous = new int[channels];
+            following = new int[channels];
+            nextFrame(previous);
+            nextFrame(following);
+        }
+
+        static Track open(String name) {
+            try {
+                return new Track(name, openPcm(name));
+            } catch (IOException | UnsupportedAudioFileException e) {
+                GameLog.error(GameLog.Category.SOUND, "Error playing theme music: {}", e);
+                return null;
+            }
+        }
+
+        private static AudioInputStream openPcm(String name) throws IOException, UnsupportedAudioFileException {
+            AudioInputStream stream = AudioSystem.getAudioInputStream(Assets.open(name));
+            AudioFormat source = stream.getFormat();
+            AudioFormat pcm = new AudioFormat(source.getSampleRate(), 16, source.getChannels(), true, false);
+            if (source.matches(pcm)) {
+                return stream;
+            }
+            if (!AudioSystem.isConversionSupported(pcm, source)) {
+                stream.close();
+                throw new UnsupportedAudioFileException("Cannot convert " + source + " to PCM");
+            }
+            return AudioSystem.getAudioInputStream(pcm, stream);
+        }
+
+        // Fill a stereo buffer with the next frames
+        void read(float[] out, int frames) {
+            for (int frame = 0; frame < frames; frame++) {
+                while (phase >= 1) {
+                    System.arraycopy(following, 0, previous, 0, channels);
+                    nextFrame(following);
+                    phase -= 1;
+                }
+                for (int channel = 0; channel < CHANNELS; channel++) {
+                    int source = Math.min(channel, channels - 1); // Mono is copied to both sides
+                    out[frame * 2 + channel] = (float) (previous[source] + (following[source] - previous[source]) * phase);
+                }
+                phase += step;
+            }
+        }
+
+        private void nextFrame(int[] frame) {
+            if (rawIndex == rawFrames && !fill()) {
+                Arrays.fill(frame, 0); // Unreadable: play silence
+                return;
+            }
+            int offset = rawIndex * channels * 2;
+            for (int channel = 0; channel < channels; channel++) {
+                frame[channel] = SoundCache.sample(raw, offset + channel * 2);
+            }
+            rawIndex++;
+        }
+
+        // Read the next block, going back to the start of the track at its end
+        private boolean fill() {
+            if (failed) {
+                return false;
+            }
+            try {
+                for (int attempt = 0; attempt < 2; attempt++) {
+                    int bytes = stream.readNBytes(raw, 0, raw.length);
+                    rawFrames = bytes / (channels * 2);
+                    rawIndex = 0;
+                    if (rawFrames > 0) {
+                        return true;
+                    }
+                    stream.close();
+                    stream = openPcm(name); // Loop
+                }
+            } catch (IOException | UnsupportedAudioFileException e) {
+                GameLog.error(GameLog.Category.SOUND, "Error reading theme music: {}", e);
+            }
+            failed = true; // Empty or broken asset
+            return false;
+        }
+
+        void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // Nothing left to do with it
+            }
+        }
+    }
+}
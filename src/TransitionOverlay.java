@@ -0,0 +1,92 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+// The loading art shown over the game window when the player changes rooms.
+//
+// One overlay is installed as the window's glass pane and reused for every move. It is drawn
+// straight onto the window and faded out by a javax.swing.Timer, so it never holds up the move
+// itself: the new room is already shown underneath when the overlay appears. Clicking it, or any key
+// typed in the game (see skip), removes it at once, and keys still reach the input field.
+public class TransitionOverlay extends JComponent {
+    private static final int FRAME_MILLIS = 16;     // About 60 frames a second
+    private static final int DURATION_MILLIS = 600; // Time for the overlay to fade away
+    private static final Color[] LABEL_COLORS = {Color.RED, Color.GREEN, Color.YELLOW, Color.BLUE, Color.MAGENTA, Color.CYAN, Color.WHITE};
+
+    private final Timer timer = new Timer(FRAME_MILLIS, e -> tick());
+    private final String[] artLines = ANSIArt.getLoadingArt().split("\n");
+    private final Font artFont = new Font("Monospaced", Font.PLAIN, 15);
+    private final Font labelFont = new Font("Arial", Font.BOLD, 40);
+    private long startedAt;
+    private float opacity;
+
+    public TransitionOverlay() {
+        setOpaque(false);
+        setVisible(false);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                skip();
+            }
+        });
+    }
+
+    // Show the overlay from the start. Must be called on the EDT.
+    public void play() {
+        startedAt = System.nanoTime();
+        opacity = 1f;
+        setVisible(true);
+        timer.restart();
+        repaint();
+    }
+
+    // Remove the overlay now, if it is showing
+    public void skip() {
+        if (isVisible()) {
+            timer.stop();
+            setVisible(false);
+        }
+    }
+
+    private void tick() {
+        float elapsed = (System.nanoTime() - startedAt) / 1_000_000f;
+        if (elapsed >= DURATION_MILLIS) {
+            skip();
+            return;
+        }
+        opacity = 1f - elapsed / DURATION_MILLIS;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, getWidth(), getHeight());
+
+            // Loading art in the middle of the window
+            g.setFont(artFont);
+            FontMetrics metrics = g.getFontMetrics();
+            int lineHeight = metrics.getHeight();
+            int y = (getHeight() - lineHeight * artLines.length) / 2 + metrics.getAscent();
+            g.setColor(Color.WHITE);
+            for (String line : artLines) {
+                g.drawString(line, (getWidth() - metrics.stringWidth(line)) / 2, y);
+                y += lineHeight;
+            }
+
+            // "Loading..." below it, changing colour as it fades
+            g.setFont(labelFont);
+            metrics = g.getFontMetrics();
+            int colour = (int) ((1f - opacity) * LABEL_COLORS.length) % LABEL_COLORS.length;
+            g.setColor(LABEL_COLORS[colour]);
+            String label = "Loading...";
+            g.drawString(label, (getWidth() - metrics.stringWidth(label)) / 2, y + lineHeight * 2);
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -2,22 +2,45 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.List;
-
-public class UserInterface {
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class UserInterface implements GameOutput {
     private JFrame frame;                     // Main application window
     private JTextArea textArea;               // Area to display game messages
+    private OutputBuffer output;              // Batches messages into textArea
     private JTextField inputField;            // Field for user input
     private JButton sendButton;               // Button to send user input
     private GameController gameController;    // Reference to GameController
     private JTextArea ansiArtArea;            // Area to display ANSI art
-    private SoundManager soundManager; // Manages game sounds
+    private int artColumns;                   // Width of ansiArtArea in characters, updated on resize
+    private String artId;                     // Art currently shown, re-centered when the width changes
+    private String artText;
+    private static final int SCROLLBACK_LINES = 2000; // Oldest output lines are dropped beyond this
+    private static final int CENTERED_ART_CACHE_SIZE = 32; // Centered renderings kept for the current width
+    private static final double MOVE_FRAME_MILLIS = 1000.0 / 60; // A move should be on screen within one frame
+    private final TransitionOverlay transition = new TransitionOverlay(); // Shown over the window between rooms
+    private JDialog mapWindow;                // Created the first time the map is shown
+    private WorldMapPanel mapPanel;
+    private JTextArea mapSummary;             // Exits and enemies of the current room, under the map
+
+    // Art centered for artColumns, by art id. Emptied when the width changes.
+    private final Map<String, String> centeredArt = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CENTERED_ART_CACHE_SIZE;
+        }
+    };
 
 
     public UserInterface() {
         initializeUI(); // Initialize the user interface
-        this.soundManager = new SoundManager(); // Initialize sound manager
-
     }
 
 
@@ -46,6 +69,14 @@ public class UserInterface {
         ansiArtArea.setBackground(Color.BLACK); // Set background color
         ansiArtArea.setForeground(Color.WHITE); // Set text color
 
+        // Measure the width only when it changes, and center the art again for the new width
+        ansiArtArea.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                updateArtColumns();
+            }
+        });
+
         // Add the ANSI art area to a scroll pane
         JScrollPane ansiScrollPane = new JScrollPane(ansiArtArea);
         ansiScrollPane.setPreferredSize(new Dimension(1400, 600)); // Set a suitable size for ANSI art
@@ -58,7 +89,7 @@ public class UserInterface {
         frame.add(ansiPanel, BorderLayout.NORTH); // Add to the top of the window
 
         // Set the title screen ANSI art when the application starts
-        updateAnsiArt(ANSIArt.getTitleScreen()); // Display title screen ANSI art centered
+        updateAnsiArt("title_screen", ANSIArt.getTitleScreen()); // Display title screen ANSI art centered
 
         // Create a text area to show messages to the player
         textArea = new JTextArea();
@@ -69,6 +100,8 @@ public class UserInterface {
         textArea.setBackground(Color.BLACK); // Set background color
         textArea.setForeground(Color.WHITE); // Set text color
 
+        output = new OutputBuffer(textArea, SCROLLBACK_LINES); // One document update per command
+
         // Create a scroll pane for the text area
         JScrollPane scrollPane = new JScrollPane(textArea);
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS); // Always show the vertical scroll bar
@@ -108,6 +141,15 @@ public class UserInterface {
         // Add the input panel to the bottom of the window
         frame.add(inputPanel, BorderLayout.SOUTH);
 
+        // The room transition is drawn over everything; typing skips it and still goes to the input field
+        frame.setGlassPane(transition);
+        inputField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                transition.skip();
+            }
+        });
+
         // Show the window to the user
         frame.setVisible(true);
     }
@@ -120,17 +162,39 @@ public class UserInterface {
 
     // Method to update ANSI art based on the current room
     public void updateAnsiArt(String ansiArt) {
+        updateAnsiArt(ansiArt, ansiArt); // Without an id the art is its own key
+    }
+
+    // Show art centered in the art area. Each art is centered once per width and then reused,
+    // so showing it again only swaps the text.
+    public void updateAnsiArt(String id, String ansiArt) {
+        artId = id;
+        artText = ansiArt;
+        String centered = centeredArt.computeIfAbsent(id, key -> center(ansiArt, artColumns));
+        ansiArtArea.setText(centered);
+        ansiArtArea.setCaretPosition(0); // Optional: scroll to top after update
+    }
+
+    private void updateArtColumns() {
+        int columns = ansiArtArea.getVisibleRect().width / ansiArtArea.getFontMetrics(ansiArtArea.getFont()).charWidth('M');
+        if (columns != artColumns) {
+            artColumns = columns;
+            centeredArt.clear(); // Every rendering was for the old width
+            if (artId != null) {
+                updateAnsiArt(artId, artText);
+            }
+        }
+    }
+
+    private static String center(String ansiArt, int maxWidth) {
         String[] lines = ansiArt.split("\n");
-        StringBuilder centeredArt = new StringBuilder();
-        int maxWidth = ansiArtArea.getVisibleRect().width / ansiArtArea.getFontMetrics(ansiArtArea.getFont()).charWidth('M');
+        StringBuilder centered = new StringBuilder(ansiArt.length() + lines.length * Math.max(0, maxWidth / 2));
 
         for (String line : lines) {
             int padding = (maxWidth - line.length()) / 2;
-            centeredArt.append(" ".repeat(Math.max(0, padding))).append(line).append("\n");
+            centered.append(" ".repeat(Math.max(0, padding))).append(line).append("\n");
         }
-
-        ansiArtArea.setText(centeredArt.toString());
-        ansiArtArea.setCaretPosition(0); // Optional: scroll to top after update
+        return centered.toString();
     }
 
 
@@ -144,209 +208,171 @@ public class UserInterface {
         }
     }
 
-    // Process user input commands
+    // Hand user input to the game, which parses and runs every command
     private void processInput(String input) {
         if (gameController != null) {
-            // Normalize input by trimming and converting to lower case
-            String trimmedInput = input.trim().toLowerCase();
-
-            switch (trimmedInput) {
-                case "look":
-                    Room currentRoom = gameController.getCurrentRoom(); // Get the current room
-                    gameController.playSound("resources/sounds/look_sound.wav"); // Play sound for look action
-                    displayRoomDescription(currentRoom); // Call the displayRoomDescription method
-                    showRoomItemsAndEnemies(currentRoom); // Show items and enemies in the current room
-                    break;
-                case "inventory":
-                    displayInventory(); // Show inventory if the command is "inventory"
-                    break;
-                case "help":
-                    showHelp(); // Show help instructions
-                    break;
-                case "health":
-                    gameController.showHealth(); // Call the GameController to display health
-                    break;
-                default:
-                    if (trimmedInput.startsWith("take ")) {
-                        String itemName = trimmedInput.substring(5); // Extract the item name
-                        handleTakeItem(itemName); // Handle taking an item
-                    } else if (trimmedInput.startsWith("drop ")) {
-                        String itemName = trimmedInput.substring(5); // Extract the item name
-                        handleDropItem(itemName); // Handle dropping an item
-                    } else if (trimmedInput.startsWith("eat ")) {
-                        // Handle eating food
-                        gameController.handleFoodConsumption(trimmedInput); // Added handling for food consumption
-                    } else if (trimmedInput.startsWith("drink ")) {
-                        // Handle drinking potions
-                        gameController.handlePotionConsumption(trimmedInput); // Added handling for potion consumption
-                    } else {
-                        gameController.processCommand(trimmedInput); // Handle other commands
-                    }
-                    break;
-            }
+            gameController.processCommand(input);
         } else {
             showMessage("Error: GameController is not set."); // Improved error message
         }
     }
 
-    // Handle taking an item from the current room
-    private void handleTakeItem(String itemName) {
-        Item item = gameController.takeItem(itemName); // Attempt to take the item and get the Item object
-        if (item != null) { // If the item is successfully taken
-            showItemPickedUp(item.getLongName()); // Pass the long name of the Item to showItemPickedUp
-        } else {
-            showMessage("You couldn't find a " + itemName + " here."); // Notify failure
-        }
+    // Method to clear the output text area
+    @Override
+    public void clearOutput() {
+        output.clear(); // Clear the text area when the output is next shown
     }
 
+    // Method to show messages to the user in a styled format
+    @Override
+    public void showMessage(String message) {
+        output.append(message); // Shown with the rest of the command's output, then scrolled to the bottom
+    }
 
-    // Handle dropping an item from the inventory
-    private void handleDropItem(String itemName) {
-        Item item = gameController.dropItem(itemName); // Attempt to drop the item and get the Item object
-        if (item != null) { // If the item is successfully dropped
-            showItemDropped(item.getLongName()); // Pass the long name of the Item to showItemDropped
+    // Describe the room and show its own art, or the title screen for rooms without any
+    @Override
+    public void displayRoomDescription(Room room) {
+        GameOutput.super.displayRoomDescription(room);
+        String art = ANSIArt.getRoomArt(room.getName());
+        String id = art != null ? ANSIArt.roomArtName(room.getName()) : "title_screen";
+        String shown = art != null ? art : ANSIArt.getTitleScreen();
+        if (SwingUtilities.isEventDispatchThread()) {
+            updateAnsiArt(id, shown);
         } else {
-            showMessage("You don't have a " + itemName + " in your inventory."); // Notify failure
+            SwingUtilities.invokeLater(() -> updateAnsiArt(id, shown));
         }
     }
 
-    // Method to show item picked up message
-    public void showItemPickedUp(String itemLongName) {
-        showMessage("You picked up: " + itemLongName + "."); // Notify the user of item pickup
-    }
+    // Method to display the map of the current room and its connections
+    @Override
+    public void showMap(String currentRoomName, String eastRoomName, String southRoomName, String westRoomName, String northRoomName, String enemies) {
+        String mapDisplay = GameOutput.formatMap(currentRoomName, eastRoomName, southRoomName, westRoomName, northRoomName, enemies);
 
-    // Method to show item dropped message
-    public void showItemDropped(String itemLongName) {
-        showMessage("You dropped the " + itemLongName + "."); // Notify the user of item drop
+        if (mapWindow == null) {
+            createMapWindow();
+        }
+        mapPanel.setCurrentRoom(gameController.getCurrentRoom().getId()); // Starts on the player's room
+        mapSummary.setText(mapDisplay);
+        mapWindow.setVisible(true); // Waits here until the map is closed, like the old message dialog
     }
 
-
-    // Method to display room descriptions in an overlay style
-    public void displayRoomDescription(Room room) {
-        String description = "You are in " + room.getName() + "\n" + room.getDescription(); // Create room description
-        showMessage(description); // Show the description in the message area
+    // The map window is made once and shown again for every 'show map'
+    private void createMapWindow() {
+        mapWindow = new JDialog(frame, "Game Map", true);
+        mapWindow.setDefaultCloseOperation(WindowConstants.HIDE_ON_CLOSE);
+        mapPanel = new WorldMapPanel(gameController.getMap());
+
+        mapSummary = new JTextArea();
+        mapSummary.setEditable(false); // Make the text area non-editable
+        mapSummary.setFont(new Font("Monospaced", Font.PLAIN, 14)); // Set a monospaced font
+        mapSummary.setBackground(Color.BLACK); // Set background color
+        mapSummary.setForeground(Color.WHITE); // Set text color
+
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> mapWindow.setVisible(false)); // Hide the window, it is shown again next time
+        mapWindow.getRootPane().setDefaultButton(closeButton); // Enter or Escape closes the map
+        mapWindow.getRootPane().registerKeyboardAction(e -> mapWindow.setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.add(mapSummary, BorderLayout.CENTER);
+        bottomPanel.add(closeButton, BorderLayout.EAST);
+        mapWindow.add(mapPanel, BorderLayout.CENTER);
+        mapWindow.add(bottomPanel, BorderLayout.SOUTH);
+        mapWindow.setSize(1000, 700);
+        mapWindow.setLocationRelativeTo(frame);
     }
 
-    // Method to show items and enemies in the current room
-    public void showRoomItemsAndEnemies(Room room) {
-        StringBuilder itemsAndEnemiesMessage = new StringBuilder();
-        itemsAndEnemiesMessage.append("Items in this room:\n");
+    // Show the lore and loading screens, then hand over to the game
+    public void startGame() {
+        GameLog.debug(GameLog.Category.UI, "Starting the game...");
 
-        // Show items
-        if (room.getItems().isEmpty()) {
-            itemsAndEnemiesMessage.append("There are no items in this room.\n");
-        } else {
-            for (Item item : room.getItems()) {
-                itemsAndEnemiesMessage.append("- ").append(item.getLongName()).append(" (").append(item.getShortName()).append(")\n");
-            }
+        if (StartupProfiler.isFastMode()) {
+            showFirstPrompt(); // Skip the lore and loading animations
+            return;
         }
 
-        // Show enemies
-        List<Enemy> enemies = room.getEnemies(); // Ensure that the correct List type is imported
-        itemsAndEnemiesMessage.append("Enemies in this room:\n");
-        if (enemies.isEmpty()) {
-            itemsAndEnemiesMessage.append("There are no enemies in this room.\n");
-        } else {
-            for (Enemy enemy : enemies) {
-                itemsAndEnemiesMessage.append("- ").append(enemy.getName()).append("\n");
+        // Start a new thread for the game start process
+        new Thread(() -> {
+            // Show the lore presentation first
+            LorePresentation lorePresentation = new LorePresentation();
+            try {
+                lorePresentation.displayLore(); // Display the lore presentation
+            } catch (InterruptedException e) {
+                System.err.println("Lore presentation error: " + e.getMessage());
+                return; // Exit if lore presentation fails
             }
-        }
-
-        showMessage(itemsAndEnemiesMessage.toString()); // Show message with items and enemies
-    }
 
-    // Method to display the player's inventory
-    private void displayInventory() {
-        StringBuilder inventoryMessage = new StringBuilder("Your Inventory:\n");
-        if (gameController.getPlayerInventory().isEmpty()) {
-            inventoryMessage.append("Your inventory is empty.");
-        } else {
-            for (Item item : gameController.getPlayerInventory()) {
-                String equippedMessage = ""; // Initialize the equipped message
-                // Check if the item is the equipped weapon and display accordingly
-                if (item instanceof Weapon && item.equals(gameController.getEquippedWeapon())) {
-                    equippedMessage = " (equipped)"; // Set equipped message
-                }
-                inventoryMessage.append("- ").append(item.getLongName()).append(equippedMessage).append("\n");
+            // After the lore presentation, show the loading screen
+            LoadingScreen loadingScreen = new LoadingScreen();
+            try {
+                loadingScreen.displayLoading(); // Display loading animation
+            } catch (InterruptedException | IOException e) {
+                System.err.println("Loading error: " + e.getMessage());
+                return; // Exit if loading fails
             }
-        }
-        showMessage(inventoryMessage.toString()); // Show the inventory in the message area
+
+            // Continue with the game UI after loading is complete
+            SwingUtilities.invokeLater(this::showFirstPrompt);
+        }).start(); // Start the game start process thread
     }
 
-    // Method to display the player's health
-    public void showHealth(int currentHealth, int maxHealth) {
-        String healthMessage = "Your health: " + currentHealth + "/" + maxHealth;
-
-        String healthStatus;
-        // Determine health status message
-        if (currentHealth >= 75) {
-            healthStatus = "You are in great shape!";
-        } else if (currentHealth >= 50) {
-            healthStatus = "You are feeling fine.";
-        } else if (currentHealth >= 25) {
-            healthStatus = "You are hurt, be careful!";
-        } else {
-            healthStatus = "You are in critical condition! Find something to heal.";
+    // Show the welcome text and the starting room, and wait for the first command
+    private void showFirstPrompt() {
+        if (gameController == null) {
+            GameLog.error(GameLog.Category.UI, "GameController is not set.");
+            return;
         }
-
-        // Show both health message and status
-        showMessage(healthMessage); // Display the health message
-        showMessage(healthStatus); // Display the health status
+        gameController.showWelcome(); // Show the welcome text and the starting room
+        inputField.requestFocusInWindow(); // Ready for typing
+        StartupProfiler.firstPrompt();
     }
 
-    // Method to clear the output text area
-    public void clearOutput() {
-        textArea.setText(""); // Clear the text area
+    // Finish the move at once and fade the transition overlay over the new room
+    @Override
+    public void playTransition(Runnable onFinished) {
+        long start = System.nanoTime();
+        onFinished.run(); // Commands are handled on the EDT, so this is where the move is shown
+        double elapsed = (System.nanoTime() - start) / 1e6;
+        // Formatted only when the level is on, so a quiet log costs a move nothing
+        if (elapsed > MOVE_FRAME_MILLIS) {
+            if (GameLog.isEnabled(GameLog.Category.UI, GameLog.Level.WARN)) {
+                GameLog.warn(GameLog.Category.UI, "{}", String.format(Locale.ROOT, "Move took %.1f ms, longer than a frame", elapsed));
+            }
+        } else if (GameLog.isEnabled(GameLog.Category.UI, GameLog.Level.DEBUG)) {
+            GameLog.debug(GameLog.Category.UI, "{}", String.format(Locale.ROOT, "Move took %.2f ms", elapsed));
+        }
+        if (!StartupProfiler.isFastMode()) {
+            transition.play();
+        }
     }
 
-    // Method to show messages to the user in a styled format
-    public void showMessage(String message) {
-        textArea.append(message + "\n"); // Append the new message to the text area
-        textArea.setCaretPosition(textArea.getDocument().getLength()); // Auto-scroll to the bottom of the text area
+    // Wait a moment after death, then go back to the start screen
+    @Override
+    public void gameOver() {
+        // Use a new thread to wait for a while before closing the game
+        new Thread(() -> {
+            try {
+                Thread.sleep(3000); // Sleep for 3000 milliseconds (3 seconds)
+            } catch (InterruptedException e) {
+                e.printStackTrace(); // Handle interruption
+            }
+            SwingUtilities.invokeLater(this::closeGameAndStartNewView); // Close the game on the EDT
+        }).start();
     }
 
-    // Method to show help instructions to the player
-    public void showHelp() {
-        // Create a StringBuilder to build the help message with a grid layout
-        StringBuilder helpMessage = new StringBuilder("Available commands:\n\n");
-
-        // Define the commands in an array
-        String[][] commands = {
-                {"Move Commands:", "Status commands:", "Action command:"},
-                {"go north", "health", "inventory", "drink [potion]"},
-                {"go west", "look", "take [item]", "attack[enemy name]"},
-                {"go east", "show map", "drop [item]", "exit" + ": close the game"},
-                {"go south", "unlock", "eat [food]"},
-        };
-
-        // Create a formatted string with columns
-        for (String[] row : commands) {
-            for (String command : row) {
-                if (!command.isEmpty()) {
-                    helpMessage.append(String.format("%-20s", command)); // Format each command
-                } else {
-                    helpMessage.append(String.format("%-20s", " ")); // Fill empty spaces
-                }
-            }
-            helpMessage.append("\n"); // New line after each row
+    // Method to close the current game and start the StartView
+    private void closeGameAndStartNewView() {
+        if (gameController != null) {
+            gameController.shutdown(); // Stop any sounds
         }
-
-        // Show the formatted help message
-        showMessage(helpMessage.toString());
+        // Launch StartView
+        SwingUtilities.invokeLater(StartView::start);
     }
 
-    // Method to display the map of the current room and its connections
-    public void showMap(String currentRoomName, String eastRoomName, String southRoomName, String westRoomName, String northRoomName, String enemies) {
-        StringBuilder mapDisplay = new StringBuilder();
-        mapDisplay.append("Current Room: ").append(currentRoomName).append("\n");
-        mapDisplay.append("Adjacent Rooms:\n");
-        mapDisplay.append("North: ").append(northRoomName).append("\n");
-        mapDisplay.append("South: ").append(southRoomName).append("\n");
-        mapDisplay.append("West: ").append(westRoomName).append("\n");
-        mapDisplay.append("East: ").append(eastRoomName).append("\n");
-        mapDisplay.append("Enemies in the room: ").append(enemies).append("\n"); // Display enemies
-
-        // Show the map in a dialog
-        JOptionPane.showMessageDialog(frame, mapDisplay.toString(), "Game Map", JOptionPane.INFORMATION_MESSAGE);
+    // Close the application when the player exits
+    @Override
+    public void exitGame() {
+        System.exit(0); // Exit the application
     }
 }
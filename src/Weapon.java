@@ -26,9 +26,7 @@ public abstract class Weapon extends Item {
         if (this == obj) return true; // Reference equality
         if (!(obj instanceof Weapon)) return false; // Check if the other object is a Weapon
         Weapon other = (Weapon) obj; // Cast to Weapon
-        boolean isEqual = this.getShortName().equals(other.getShortName()); // Compare based on short name
-        System.out.println("Comparing " + this.getShortName() + " with " + other.getShortName() + ": " + isEqual); // Debug output
-        return isEqual;
+        return this.getShortName().equals(other.getShortName()); // Compare based on short name
     }
 
     @Override
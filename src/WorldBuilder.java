@@ -0,0 +1,124 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+// Collects rooms, exits, items and enemies and turns them into an immutable WorldTemplate
+public class WorldBuilder {
+    private final List<String> names = new ArrayList<>();
+    private final List<String> descriptions = new ArrayList<>();
+    private int[] exits = new int[4 * 64]; // north, south, east, west for every room
+    private final BitSet locked = new BitSet(); // Locked exits, indexed like exits
+    private final List<List<Item>> roomItems = new ArrayList<>();         // null for rooms without items
+    private final List<List<EnemySpawn>> roomEnemies = new ArrayList<>(); // null for rooms without enemies
+    private final List<Item> itemDefinitions = new ArrayList<>();
+    private int startRoom = 0;
+
+    // Add a room and return its id
+    public int addRoom(String name, String description) {
+        int room = names.size();
+        names.add(name);
+        descriptions.add(description);
+        if (exits.length < (room + 1) * 4) {
+            exits = Arrays.copyOf(exits, exits.length * 2);
+        }
+        Arrays.fill(exits, room * 4, room * 4 + 4, RoomGraph.NO_EXIT);
+        roomItems.add(null);
+        roomEnemies.add(null);
+        return room;
+    }
+
+    // Fill in the name and description of a room that was added before its details were known
+    public void setRoomDetails(int room, String name, String description) {
+        names.set(room, name);
+        descriptions.set(room, description);
+    }
+
+    // Return the room behind an exit (0 north, 1 south, 2 east, 3 west) or RoomGraph.NO_EXIT
+    public int getExit(int room, int direction) {
+        return exits[room * 4 + direction];
+    }
+
+    public boolean isLocked(int room, int direction) {
+        return locked.get(room * 4 + direction);
+    }
+
+    public int getStartRoom() {
+        return startRoom;
+    }
+
+    public int getRoomCount() {
+        return names.size();
+    }
+
+    // Connect two rooms in a specific direction, the way back is added as well
+    public void connectRooms(int room1, int room2, String direction) {
+        switch (direction.toLowerCase()) {
+            case "north":
+                connect(room1, 0, room2);
+                break;
+            case "south":
+                connect(room1, 1, room2);
+                break;
+            case "east":
+                connect(room1, 2, room2);
+                break;
+            case "west":
+                connect(room1, 3, room2);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    // Same as connectRooms with the direction as an index, the way back is added as well
+    public void connect(int room1, int direction, int room2) {
+        exits[room1 * 4 + direction] = room2;
+        exits[room2 * 4 + (direction ^ 1)] = room1; // north <-> south, east <-> west
+    }
+
+    // Lock the door leaving a room in a direction (0 north, 1 south, 2 east, 3 west); the way back stays open
+    public void lock(int room, int direction) {
+        locked.set(room * 4 + direction);
+    }
+
+    public void setStartRoom(int room) {
+        startRoom = room;
+    }
+
+    // Register an item definition (for lookups by id)
+    public void defineItem(Item item) {
+        itemDefinitions.add(item);
+    }
+
+    // Place an item in a room
+    public void addItem(int room, Item item) {
+        List<Item> items = roomItems.get(room);
+        if (items == null) {
+            items = new ArrayList<>(4);
+            roomItems.set(room, items);
+        }
+        items.add(item);
+    }
+
+    // Place an enemy in a room
+    public void addEnemy(int room, EnemySpawn enemy) {
+        List<EnemySpawn> enemies = roomEnemies.get(room);
+        if (enemies == null) {
+            enemies = new ArrayList<>(1);
+            roomEnemies.set(room, enemies);
+        }
+        enemies.add(enemy);
+    }
+
+    public WorldTemplate build() {
+        RoomTemplate[] rooms = new RoomTemplate[names.size()];
+        for (int id = 0; id < rooms.length; id++) {
+            List<Item> items = roomItems.get(id);
+            List<EnemySpawn> enemies = roomEnemies.get(id);
+            rooms[id] = new RoomTemplate(id, names.get(id), descriptions.get(id),
+                    items == null ? List.of() : items, enemies == null ? List.of() : enemies);
+        }
+        return new WorldTemplate(rooms, new RoomGraph(rooms.length, exits, locked), startRoom, itemDefinitions);
+    }
+}
@@ -0,0 +1,271 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+
+// Compiles a WorldTemplate into the binary format read by MappedWorldTemplate.
+//
+// Layout (big endian ints):
+//   header       magic, version, roomCount, startRoom, stringCount, itemCount,
+//                stringTableOffset, itemTableOffset, roomTableOffset, spawnDataOffset, nameIndexOffset
+//   string table stringCount offsets, then every string as (byte length, UTF-8 bytes)
+//   item table   itemCount records of ITEM_RECORD_SIZE bytes
+//   room table   roomCount records of ROOM_RECORD_SIZE bytes
+//   spawn data   per room: item list (count, item ids) and enemy list (count, enemy records)
+//   name index   roomCount records of (nameHash, room id), sorted by hash and then id, for findRoom
+public class WorldCompiler {
+    public static final int MAGIC = 0x41475742; // "AGWB"
+    public static final int VERSION = 3;
+    public static final int HEADER_SIZE = 11 * 4;
+    public static final int ITEM_RECORD_SIZE = 7 * 4;  // kind, short name, long name, description, 3 values
+    public static final int ROOM_RECORD_SIZE = 9 * 4;  // name, description, 4 exits, locks, items, enemies
+    public static final int ENEMY_RECORD_SIZE = 5 * 4; // type, name, description, health, weapon item
+    public static final int NAME_RECORD_SIZE = 2 * 4;  // name hash, room id
+
+    public static final int KIND_ITEM = 0;
+    public static final int KIND_MELEE = 1;
+    public static final int KIND_RANGED = 2;
+    public static final int KIND_FOOD = 3;
+    public static final int KIND_POTION = 4;
+
+    public static final int NO_LIST = -1; // Offset used when a room has no items or enemies
+
+    private final WorldTemplate world;
+    private final HashMap<String, Integer> stringIds = new HashMap<>(); // Each distinct string is stored once
+    private final List<byte[]> strings = new ArrayList<>();
+    private final IdentityHashMap<Item, Integer> itemIds = new IdentityHashMap<>();
+    private final List<Item> items = new ArrayList<>();
+
+    private WorldCompiler(WorldTemplate world) {
+        this.world = world;
+    }
+
+    public static void compile(WorldTemplate world, Path output) throws IOException {
+        new WorldCompiler(world).write(output);
+    }
+
+    private void write(Path output) throws IOException {
+        // First pass: number every string and item and work out the size of the spawn data
+        for (Item item : world.getItemDefinitions()) {
+            itemId(item);
+        }
+        long spawnSize = 0;
+        int roomCount = world.getRoomCount();
+        for (int id = 0; id < roomCount; id++) {
+            RoomTemplate room = world.getRoom(id);
+            stringId(room.getName());
+            stringId(room.getDescription());
+            for (Item item : room.getItems()) {
+                itemId(item);
+            }
+            for (EnemySpawn enemy : room.getEnemies()) {
+                stringId(enemy.type());
+                stringId(enemy.name());
+                stringId(enemy.description());
+                if (enemy.weapon() != null) {
+                    itemId(enemy.weapon());
+                }
+            }
+            spawnSize += listSize(room);
+        }
+
+        long stringTableOffset = HEADER_SIZE;
+        long stringDataSize = 0;
+        for (byte[] bytes : strings) {
+            stringDataSize += 4 + bytes.length;
+        }
+        long itemTableOffset = stringTableOffset + 4L * strings.size() + stringDataSize;
+        long roomTableOffset = itemTableOffset + (long) ITEM_RECORD_SIZE * items.size();
+        long spawnDataOffset = roomTableOffset + (long) ROOM_RECORD_SIZE * roomCount;
+        long nameIndexOffset = spawnDataOffset + spawnSize;
+        if (nameIndexOffset + (long) NAME_RECORD_SIZE * roomCount > Integer.MAX_VALUE) {
+            throw new IOException("World is too large for a single mapped file");
+        }
+
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(roomCount);
+            out.writeInt(world.getStartRoom());
+            out.writeInt(strings.size());
+            out.writeInt(items.size());
+            out.writeInt((int) stringTableOffset);
+            out.writeInt((int) itemTableOffset);
+            out.writeInt((int) roomTableOffset);
+            out.writeInt((int) spawnDataOffset);
+            out.writeInt((int) nameIndexOffset);
+
+            // String table
+            long stringOffset = stringTableOffset + 4L * strings.size();
+            for (byte[] bytes : strings) {
+                out.writeInt((int) stringOffset);
+                stringOffset += 4 + bytes.length;
+            }
+            for (byte[] bytes : strings) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            // Item table
+            for (Item item : items) {
+                writeItem(out, item);
+            }
+
+            // Room table, the list offsets point into the spawn data written next
+            RoomGraph graph = world.getGraph();
+            int spawnOffset = 0;
+            for (int id = 0; id < roomCount; id++) {
+                RoomTemplate room = world.getRoom(id);
+                out.writeInt(stringIds.get(room.getName()));
+                out.writeInt(stringIds.get(room.getDescription()));
+                int locks = 0; // One bit per locked direction
+                for (int direction = 0; direction < 4; direction++) {
+                    out.writeInt(graph.getExit(id, direction));
+                    int edge = graph.findEdge(id, direction);
+                    if (edge >= 0 && graph.isLockedAtStart(edge)) {
+                        locks |= 1 << direction;
+                    }
+                }
+                out.writeInt(locks);
+                if (room.getItems().isEmpty()) {
+                    out.writeInt(NO_LIST);
+                } else {
+                    out.writeInt(spawnOffset);
+                    spawnOffset += 4 + 4 * room.getItems().size();
+                }
+                if (room.getEnemies().isEmpty()) {
+                    out.writeInt(NO_LIST);
+                } else {
+                    out.writeInt(spawnOffset);
+                    spawnOffset += 4 + ENEMY_RECORD_SIZE * room.getEnemies().size();
+                }
+            }
+
+            // Spawn data
+            for (int id = 0; id < roomCount; id++) {
+                RoomTemplate room = world.getRoom(id);
+                if (!room.getItems().isEmpty()) {
+                    out.writeInt(room.getItems().size());
+                    for (Item item : room.getItems()) {
+                        out.writeInt(itemIds.get(item));
+                    }
+                }
+                if (!room.getEnemies().isEmpty()) {
+                    out.writeInt(room.getEnemies().size());
+                    for (EnemySpawn enemy : room.getEnemies()) {
+                        out.writeInt(stringIds.get(enemy.type()));
+                        out.writeInt(stringIds.get(enemy.name()));
+                        out.writeInt(stringIds.get(enemy.description()));
+                        out.writeInt(enemy.health());
+                        out.writeInt(enemy.weapon() == null ? -1 : itemIds.get(enemy.weapon()));
+                    }
+                }
+            }
+
+            // Name index: the hash in the high half, so sorting orders by hash and then by id
+            long[] names = new long[roomCount];
+            for (int id = 0; id < roomCount; id++) {
+                names[id] = (long) nameHash(world.getRoom(id).getName()) << 32 | id;
+            }
+            Arrays.sort(names);
+            for (long name : names) {
+                out.writeLong(name);
+            }
+        }
+    }
+
+    // Hash of a room name as findRoom looks it up, ignoring case
+    public static int nameHash(String name) {
+        return name.toLowerCase(Locale.ROOT).hashCode();
+    }
+
+    private static long listSize(RoomTemplate room) {
+        long size = 0;
+        if (!room.getItems().isEmpty()) {
+            size += 4 + 4L * room.getItems().size();
+        }
+        if (!room.getEnemies().isEmpty()) {
+            size += 4 + (long) ENEMY_RECORD_SIZE * room.getEnemies().size();
+        }
+        return size;
+    }
+
+    private void writeItem(DataOutputStream out, Item item) throws IOException {
+        int kind = KIND_ITEM;
+        int value1 = 0, value2 = 0, value3 = 0;
+        if (item instanceof RangedWeapon ranged) {
+            kind = KIND_RANGED;
+            value1 = ranged.getDamage();
+            value2 = ranged.getAmmo();
+        } else if (item instanceof MeleeWeapon melee) {
+            kind = KIND_MELEE;
+            value1 = melee.getDamage();
+        } else if (item instanceof Food food) {
+            kind = KIND_FOOD;
+            value1 = food.getHealthRestored();
+            value2 = food.isPoisonous() ? 1 : 0;
+        } else if (item instanceof Potion potion) {
+            kind = KIND_POTION;
+            value1 = potion.getHealthRestored();
+            value2 = potion.getAttackBoost();
+            value3 = potion.isPoisonous() ? 1 : 0;
+        }
+        out.writeInt(kind);
+        out.writeInt(stringIds.get(item.getShortName()));
+        out.writeInt(stringIds.get(item.getLongName()));
+        out.writeInt(stringIds.get(item.getDescription()));
+        out.writeInt(value1);
+        out.writeInt(value2);
+        out.writeInt(value3);
+    }
+
+    private int stringId(String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    private int itemId(Item item) {
+        Integer id = itemIds.get(item);
+        if (id == null) {
+            id = items.size();
+            items.add(item);
+            itemIds.put(item, id);
+            stringId(item.getShortName());
+            stringId(item.getLongName());
+            stringId(item.getDescription());
+        }
+        return id;
+    }
+
+    // Compile a world file: java WorldCompiler <input.world> <output.wbin>
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java WorldCompiler <input.world> <output" + MappedWorldTemplate.FILE_EXTENSION + ">");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            WorldTemplate world = WorldTemplate.open(Path.of(args[0]));
+            compile(world, Path.of(args[1]));
+            System.out.printf("Compiled %d rooms into %s (%d bytes) in %.1f ms%n", world.getRoomCount(), args[1],
+                    Files.size(Path.of(args[1])), (System.nanoTime() - start) / 1e6);
+        } catch (WorldFormatException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
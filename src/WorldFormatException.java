@@ -0,0 +1,15 @@
+import java.util.List;
+
+// Thrown when a world file cannot be turned into a playable world. Lists every problem found.
+public class WorldFormatException extends Exception {
+    private final List<String> problems;
+
+    public WorldFormatException(String source, List<String> problems) {
+        super(source + ": " + problems.size() + " problem(s) in world file\n  " + String.join("\n  ", problems));
+        this.problems = List.copyOf(problems);
+    }
+
+    public List<String> getProblems() {
+        return problems;
+    }
+}
@@ -0,0 +1,235 @@
+import java.util.Arrays;
+
+// Where every room of a world goes on the map, worked out once per world from its exits.
+//
+// Each connected group of rooms is laid out on a grid by walking its exits from its first room: north
+// is one cell up, east one cell right and so on. When a cell is already taken (the exits do not form
+// a flat grid) the room goes to a free cell close by, or if there is none, into rows below the group.
+// The groups are then packed in rows. Rooms are also sorted into square buckets of cells, so a view
+// only has to look at the rooms in the buckets it overlaps (see firstInBucket).
+public final class WorldLayout {
+    public static final int BUCKET_CELLS = 16; // Width and height of a bucket, in cells
+    private static final int[] DX = {0, 0, 1, -1}; // Indexed by RoomGraph direction
+    private static final int[] DY = {-1, 1, 0, 0};
+    private static final int MAX_RING = 3; // How far from its cell a room may be moved before it goes below the group
+
+    private final int[] x, y;          // Cell of each room, from 0 to getWidth() - 1 and getHeight() - 1
+    private final int width, height;   // Size of the layout in cells
+    private final int bucketsX, bucketsY;
+    private final int[] bucketStart;   // Rooms of bucket b are bucketRooms[bucketStart[b] .. bucketStart[b + 1] - 1]
+    private final int[] bucketRooms;
+
+    public WorldLayout(RoomGraph graph) {
+        int count = graph.getRoomCount();
+        x = new int[count];
+        y = new int[count];
+
+        // Lay out each group of connected rooms on its own, then put it next to the previous ones
+        boolean[] placed = new boolean[count];
+        int[] queue = new int[count];
+        int[] overflow = new int[count]; // Rooms with no free cell near theirs
+        CellSet cells = new CellSet(); // Cells taken by the group being laid out
+        int rowWidth = Math.max(64, (int) Math.ceil(Math.sqrt(count) * 2)); // Keeps the whole layout roughly square
+        int cursorX = 0, cursorY = 0, rowHeight = 0, layoutWidth = 0;
+        for (int first = 0; first < count; first++) {
+            if (placed[first]) {
+                continue;
+            }
+            cells.clear();
+            int size = layOut(graph, first, placed, queue, cells, overflow);
+
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                int room = queue[i];
+                minX = Math.min(minX, x[room]);
+                maxX = Math.max(maxX, x[room]);
+                minY = Math.min(minY, y[room]);
+                maxY = Math.max(maxY, y[room]);
+            }
+            int groupWidth = maxX - minX + 1, groupHeight = maxY - minY + 1;
+            if (cursorX > 0 && cursorX + groupWidth > rowWidth) {
+                cursorX = 0; // Next row
+                cursorY += rowHeight + 1;
+                rowHeight = 0;
+            }
+            for (int i = 0; i < size; i++) {
+                int room = queue[i];
+                x[room] += cursorX - minX;
+                y[room] += cursorY - minY;
+            }
+            cursorX += groupWidth + 1; // One empty column between groups
+            rowHeight = Math.max(rowHeight, groupHeight);
+            layoutWidth = Math.max(layoutWidth, cursorX - 1);
+        }
+        width = Math.max(1, layoutWidth);
+        height = Math.max(1, cursorY + rowHeight);
+
+        // Sort the rooms into buckets, as compressed rows like RoomGraph's edges
+        bucketsX = (width + BUCKET_CELLS - 1) / BUCKET_CELLS;
+        bucketsY = (height + BUCKET_CELLS - 1) / BUCKET_CELLS;
+        bucketStart = new int[bucketsX * bucketsY + 1];
+        for (int room = 0; room < count; room++) {
+            bucketStart[bucketOf(room) + 1]++;
+        }
+        for (int bucket = 0; bucket < bucketsX * bucketsY; bucket++) {
+            bucketStart[bucket + 1] += bucketStart[bucket];
+        }
+        bucketRooms = new int[count];
+        int[] next = Arrays.copyOf(bucketStart, bucketStart.length - 1);
+        for (int room = 0; room < count; room++) {
+            bucketRooms[next[bucketOf(room)]++] = room;
+        }
+    }
+
+    // Breadth-first walk from a room, giving every room it reaches a cell relative to it.
+    // The rooms reached are left in queue; returns how many there are.
+    private int layOut(RoomGraph graph, int first, boolean[] placed, int[] queue, CellSet cells, int[] overflow) {
+        int head = 0, tail = 0, overflowed = 0;
+        place(first, 0, 0, cells);
+        placed[first] = true;
+        queue[tail++] = first;
+        while (head < tail) {
+            int room = queue[head++];
+            for (int edge = graph.firstEdge(room); edge < graph.firstEdge(room + 1); edge++) {
+                int target = graph.getTarget(edge);
+                if (!placed[target]) {
+                    int direction = graph.getDirection(edge);
+                    if (!place(target, x[room] + DX[direction], y[room] + DY[direction], cells)) {
+                        overflow[overflowed++] = target; // Keeps the wanted cell for now, so its own exits lead somewhere
+                    }
+                    placed[target] = true;
+                    queue[tail++] = target;
+                }
+            }
+        }
+
+        // Rows of rooms that did not fit, under the rest of the group
+        if (overflowed > 0) {
+            int rowWidth = Math.max(BUCKET_CELLS, cells.maxX - cells.minX + 1);
+            for (int i = 0; i < overflowed; i++) {
+                x[overflow[i]] = cells.minX + i % rowWidth;
+                y[overflow[i]] = cells.maxY + 2 + i / rowWidth;
+            }
+        }
+        return tail;
+    }
+
+    // Put a room in a cell, or in the nearest free cell around it, searching outwards ring by ring.
+    // Returns false, leaving the room at the cell it wanted, if there is no free cell within MAX_RING.
+    private boolean place(int room, int cellX, int cellY, CellSet cells) {
+        x[room] = cellX;
+        y[room] = cellY;
+        for (int ring = 0; ring <= MAX_RING; ring++) {
+            for (int dy = -ring; dy <= ring; dy++) {
+                for (int dx = -ring; dx <= ring; dx++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dy)) == ring && cells.add(cellX + dx, cellY + dy)) {
+                        x[room] = cellX + dx;
+                        y[room] = cellY + dy;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Set of grid cells, as an open addressing hash table of packed coordinates. Layouts of big worlds
+    // put hundreds of thousands of cells in it, which would be as many boxed keys in a HashSet.
+    private static final class CellSet {
+        private static final long EMPTY = Long.MIN_VALUE; // Not a cell anyone can reach from (0, 0)
+        private long[] keys = new long[64];
+        private int size;
+        int minX, maxX, maxY; // Bounds of the cells added since the last clear
+
+        CellSet() {
+            clear();
+        }
+
+        void clear() {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            minX = Integer.MAX_VALUE;
+            maxX = Integer.MIN_VALUE;
+            maxY = Integer.MIN_VALUE;
+        }
+
+        // Add a cell; false if it was already there
+        boolean add(int cellX, int cellY) {
+            long key = ((long) cellX << 32) | (cellY & 0xffffffffL);
+            int mask = keys.length - 1;
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            minX = Math.min(minX, cellX);
+            maxX = Math.max(maxX, cellX);
+            maxY = Math.max(maxY, cellY);
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            long[] old = keys;
+            keys = new long[old.length * 2];
+            Arrays.fill(keys, EMPTY);
+            int mask = keys.length - 1;
+            for (long key : old) {
+                if (key != EMPTY) {
+                    int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = key;
+                }
+            }
+        }
+    }
+
+    private int bucketOf(int room) {
+        return (y[room] / BUCKET_CELLS) * bucketsX + x[room] / BUCKET_CELLS;
+    }
+
+    public int getRoomCount() {
+        return x.length;
+    }
+
+    public int getX(int room) {
+        return x[room];
+    }
+
+    public int getY(int room) {
+        return y[room];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getBucketsX() {
+        return bucketsX;
+    }
+
+    public int getBucketsY() {
+        return bucketsY;
+    }
+
+    // Rooms in the bucket at (bucketX, bucketY) are getBucketRoom(firstInBucket(b)) up to, but not
+    // including, firstInBucket(b + 1), where b = bucketY * getBucketsX() + bucketX
+    public int firstInBucket(int bucket) {
+        return bucketStart[bucket];
+    }
+
+    public int getBucketRoom(int index) {
+        return bucketRooms[index];
+    }
+}
@@ -0,0 +1,403 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+// Loads a WorldTemplate from a .world text file (see resources/worlds/default.world for the format).
+// The file is read one line at a time, so the whole document is never held in memory.
+public class WorldLoader {
+    private static final String[] DIRECTIONS = {"north", "south", "east", "west"};
+    private static final int MAX_FIELDS = 8; // Longest line is a potion definition
+
+    private final String source;                 // File name used in error messages
+    private final WorldBuilder builder = new WorldBuilder();
+    private final HashMap<String, Integer> roomIds = new HashMap<>();
+    private final List<String> roomKeys = new ArrayList<>();   // Room id in the file, by room index
+    private final BitSet definedRooms = new BitSet();          // Rooms that have had their 'room' line
+    private final HashMap<String, Integer> itemIds = new HashMap<>();
+    private final List<String> itemKeys = new ArrayList<>();
+    private final List<Item> items = new ArrayList<>();        // null until the 'item' line is read
+    private int[] placements = new int[64];                    // Pairs of (room, item) waiting to be placed
+    private int placementCount;
+    private final List<PendingEnemy> enemies = new ArrayList<>();
+    private final List<String> problems = new ArrayList<>();
+    private final int[] fieldStart = new int[MAX_FIELDS];     // Field positions in the current line,
+    private final int[] fieldEnd = new int[MAX_FIELDS];       // so fields only become Strings when needed
+    private String line;
+    private boolean startDefined;
+    private int lineNumber;
+
+    // An enemy line, kept until its weapon item is known
+    private record PendingEnemy(int line, int room, String type, String name, String description, int health, int weapon) {
+    }
+
+    private WorldLoader(String source) {
+        this.source = source;
+    }
+
+    // Load and validate a world file
+    public static WorldTemplate load(Path path) throws IOException, WorldFormatException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return load(reader, path.toString());
+        }
+    }
+
+    public static WorldTemplate load(Reader reader, String source) throws IOException, WorldFormatException {
+        WorldLoader loader = new WorldLoader(source);
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            loader.lineNumber++;
+            loader.parseLine(line);
+        }
+        return loader.finish();
+    }
+
+    private void parseLine(String text) {
+        line = text;
+        int start = 0;
+        while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        if (start == line.length() || line.charAt(start) == '#') {
+            return; // Blank line or comment
+        }
+
+        int space = line.indexOf(' ', start);
+        if (space < 0) {
+            problem("missing fields after '" + line.substring(start) + "'");
+            return;
+        }
+        int count = splitFields(space + 1);
+
+        if (keywordIs("room", start, space)) {
+            if (expectFields(count, 3, 3)) {
+                int room = roomIndex(field(0));
+                if (definedRooms.get(room)) {
+                    problem("room '" + field(0) + "' is defined twice");
+                }
+                definedRooms.set(room);
+                builder.setRoomDetails(room, field(1), field(2));
+            }
+        } else if (keywordIs("connect", start, space)) {
+            if (expectFields(count, 3, 3)) {
+                connect(roomIndex(field(0)), direction(1), roomIndex(field(2)));
+            }
+        } else if (keywordIs("place", start, space)) {
+            if (expectFields(count, 2, 2)) {
+                addPlacement(roomIndex(field(0)), itemIndex(field(1)));
+            }
+        } else if (keywordIs("enemy", start, space)) {
+            if (expectFields(count, 6, 6)) {
+                String type = field(1).toLowerCase();
+                if (!EnemySpawn.TYPES.contains(type)) {
+                    problem("unknown enemy type '" + field(1) + "'");
+                }
+                int health = parseInt(4);
+                String weaponKey = field(5);
+                int weapon = weaponKey.isEmpty() || weaponKey.equals("-") ? -1 : itemIndex(weaponKey);
+                enemies.add(new PendingEnemy(lineNumber, roomIndex(field(0)), type, field(2), field(3), health, weapon));
+            }
+        } else if (keywordIs("item", start, space)) {
+            if (expectFields(count, 5, 8)) {
+                defineItem(count);
+            }
+        } else if (keywordIs("lock", start, space)) {
+            if (expectFields(count, 2, 2)) {
+                int dir = direction(1);
+                if (dir >= 0) {
+                    builder.lock(roomIndex(field(0)), dir);
+                } else {
+                    problem("invalid direction '" + field(1) + "'");
+                }
+            }
+        } else if (keywordIs("start", start, space)) {
+            if (expectFields(count, 1, 1)) {
+                builder.setStartRoom(roomIndex(field(0)));
+                startDefined = true;
+            }
+        } else {
+            problem("unknown keyword '" + line.substring(start, space) + "'");
+        }
+    }
+
+    private boolean keywordIs(String keyword, int start, int end) {
+        return end - start == keyword.length() && line.startsWith(keyword, start);
+    }
+
+    // Split the rest of the line on '|' and return how many fields there are
+    private int splitFields(int from) {
+        int count = 0;
+        while (count < MAX_FIELDS) {
+            int bar = line.indexOf('|', from);
+            int end = bar < 0 ? line.length() : bar;
+            while (from < end && line.charAt(from) == ' ') {
+                from++; // Trim leading spaces
+            }
+            int last = end;
+            while (last > from && Character.isWhitespace(line.charAt(last - 1))) {
+                last--; // Trim trailing spaces
+            }
+            fieldStart[count] = from;
+            fieldEnd[count] = last;
+            count++;
+            if (bar < 0) {
+                return count;
+            }
+            from = bar + 1;
+        }
+        return count + 1; // Too many fields, reported by expectFields
+    }
+
+    private String field(int index) {
+        return line.substring(fieldStart[index], fieldEnd[index]);
+    }
+
+    // Index of the direction in a field (0 north, 1 south, 2 east, 3 west) or -1
+    private int direction(int index) {
+        int length = fieldEnd[index] - fieldStart[index];
+        for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+            if (length == DIRECTIONS[dir].length() && line.regionMatches(true, fieldStart[index], DIRECTIONS[dir], 0, length)) {
+                return dir;
+            }
+        }
+        return -1;
+    }
+
+    private boolean expectFields(int count, int min, int max) {
+        if (count < min || count > max) {
+            problem("expected " + (min == max ? String.valueOf(min) : min + " to " + max) + " fields but found " + count);
+            return false;
+        }
+        return true;
+    }
+
+    private void connect(int room1, int dir, int room2) {
+        if (dir < 0) {
+            problem("invalid direction '" + field(1) + "'");
+            return;
+        }
+        int back = dir ^ 1; // north <-> south, east <-> west
+        int existing = builder.getExit(room1, dir);
+        int existingBack = builder.getExit(room2, back);
+        if ((existing != RoomGraph.NO_EXIT && existing != room2) || (existingBack != RoomGraph.NO_EXIT && existingBack != room1)) {
+            problem("exit " + DIRECTIONS[dir] + " of '" + roomKeys.get(room1) + "' conflicts with an earlier connection");
+            return;
+        }
+        builder.connect(room1, dir, room2);
+    }
+
+    private void defineItem(int count) {
+        int index = itemIndex(field(0));
+        if (items.get(index) != null) {
+            problem("item '" + field(0) + "' is defined twice");
+            return;
+        }
+        String kind = field(1).toLowerCase();
+        String shortName = field(2);
+        String longName = field(3);
+        String description = field(4);
+        Item item = null;
+        switch (kind) {
+            case "item":
+                if (expectFields(count, 5, 5)) {
+                    item = new Item(shortName, longName, description);
+                }
+                break;
+            case "melee":
+                if (expectFields(count, 6, 6)) {
+                    item = new MeleeWeapon(shortName, longName, description, parseInt(5));
+                }
+                break;
+            case "ranged":
+                if (expectFields(count, 7, 7)) {
+                    item = new RangedWeapon(shortName, longName, description, parseInt(5), parseInt(6));
+                }
+                break;
+            case "food":
+                if (expectFields(count, 7, 7)) {
+                    item = new Food(shortName, longName, description, parseInt(5), parseBoolean(6));
+                }
+                break;
+            case "potion":
+                if (expectFields(count, 8, 8)) {
+                    item = new Potion(shortName, longName, description, parseInt(5), parseInt(6), parseBoolean(7));
+                }
+                break;
+            default:
+                problem("unknown item kind '" + field(1) + "'");
+        }
+        if (item != null) {
+            items.set(index, item);
+        }
+    }
+
+    // Look up a room by its id in the file, adding a placeholder if it has not been seen yet
+    private int roomIndex(String key) {
+        Integer index = roomIds.get(key);
+        if (index == null) {
+            index = builder.addRoom(null, null);
+            roomIds.put(key, index);
+            roomKeys.add(key);
+        }
+        return index;
+    }
+
+    private int itemIndex(String key) {
+        Integer index = itemIds.get(key);
+        if (index == null) {
+            index = items.size();
+            items.add(null);
+            itemIds.put(key, index);
+            itemKeys.add(key);
+        }
+        return index;
+    }
+
+    private void addPlacement(int room, int item) {
+        if (placementCount * 2 + 2 > placements.length) {
+            placements = Arrays.copyOf(placements, placements.length * 2);
+        }
+        placements[placementCount * 2] = room;
+        placements[placementCount * 2 + 1] = item;
+        placementCount++;
+    }
+
+    // Parse a whole number straight from the line without creating a String
+    private int parseInt(int index) {
+        int pos = fieldStart[index];
+        int end = fieldEnd[index];
+        boolean negative = pos < end && line.charAt(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+        if (pos == end || end - pos > 9) {
+            problem("'" + field(index) + "' is not a number");
+            return 0;
+        }
+        int value = 0;
+        for (; pos < end; pos++) {
+            char c = line.charAt(pos);
+            if (c < '0' || c > '9') {
+                problem("'" + field(index) + "' is not a number");
+                return 0;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private boolean parseBoolean(int index) {
+        String value = field(index);
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            problem("'" + value + "' is not true or false");
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private void problem(String message) {
+        if (problems.size() < 100) { // Enough to fix a broken file without flooding the output
+            problems.add(lineNumber > 0 ? "line " + lineNumber + ": " + message : message);
+        }
+    }
+
+    // Validation pass: resolve everything that was referenced before it was defined
+    private WorldTemplate finish() throws WorldFormatException {
+        lineNumber = 0;
+        int roomCount = builder.getRoomCount();
+        if (roomCount == 0) {
+            problem("the world has no rooms");
+        }
+        for (int room = definedRooms.nextClearBit(0); room < roomCount; room = definedRooms.nextClearBit(room + 1)) {
+            problem("room '" + roomKeys.get(room) + "' is used but never defined");
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == null) {
+                problem("item '" + itemKeys.get(i) + "' is used but never defined");
+            }
+        }
+        if (!startDefined) {
+            problem("no start room given");
+        }
+        for (int room = 0; room < roomCount; room++) {
+            for (int dir = 0; dir < 4; dir++) {
+                if (builder.isLocked(room, dir) && builder.getExit(room, dir) == RoomGraph.NO_EXIT) {
+                    problem("room '" + roomKeys.get(room) + "' has a locked " + DIRECTIONS[dir] + " door but no " + DIRECTIONS[dir] + " exit");
+                }
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new WorldFormatException(source, problems);
+        }
+
+        for (Item item : items) {
+            builder.defineItem(item);
+        }
+        for (int i = 0; i < placementCount; i++) {
+            builder.addItem(placements[i * 2], items.get(placements[i * 2 + 1]));
+        }
+        for (PendingEnemy enemy : enemies) {
+            Weapon weapon = null;
+            if (enemy.weapon() >= 0) {
+                Item item = items.get(enemy.weapon());
+                if (item instanceof Weapon) {
+                    weapon = (Weapon) item;
+                } else {
+                    lineNumber = enemy.line();
+                    problem("'" + itemKeys.get(enemy.weapon()) + "' is not a weapon");
+                }
+            }
+            builder.addEnemy(enemy.room(), new EnemySpawn(enemy.type(), enemy.name(), enemy.description(), enemy.health(), weapon));
+        }
+        if (!problems.isEmpty()) {
+            throw new WorldFormatException(source, problems);
+        }
+
+        warnAboutUnreachableRooms(roomCount);
+        return builder.build();
+    }
+
+    // Rooms that cannot be reached from the start are allowed, but almost always a mistake
+    private void warnAboutUnreachableRooms(int roomCount) {
+        BitSet reached = new BitSet(roomCount);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(builder.getStartRoom());
+        reached.set(builder.getStartRoom());
+        while (!queue.isEmpty()) {
+            int room = queue.poll();
+            for (int dir = 0; dir < 4; dir++) {
+                int next = builder.getExit(room, dir);
+                if (next != RoomGraph.NO_EXIT && !reached.get(next)) {
+                    reached.set(next);
+                    queue.add(next);
+                }
+            }
+        }
+        int unreachable = roomCount - reached.cardinality();
+        if (unreachable > 0) {
+            GameLog.warn(GameLog.Category.WORLD, "{}: {} room(s) cannot be reached from the start room", source, unreachable);
+        }
+    }
+
+    // Check a world file and print how long it took: java WorldLoader <file.world>
+    public static void main(String[] args) throws IOException {
+        Path path = args.length > 0 ? Path.of(args[0]) : Assets.getRoot().resolve("worlds/default.world");
+        long start = System.nanoTime();
+        try {
+            WorldTemplate world = load(path);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Loaded %d rooms and %d items from %s in %.1f ms%n",
+                    world.getRoomCount(), world.getItemDefinitions().size(), path, elapsed / 1e6);
+        } catch (WorldFormatException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
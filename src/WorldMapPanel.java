@@ -0,0 +1,244 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.BitSet;
+
+// The world map: the rooms the player has visited and their exits, drawn straight onto the component.
+//
+// Rooms sit where the world's WorldLayout puts them. Only the layout buckets inside the window are
+// looked at, so the cost of a frame depends on what is on screen, not on the size of the world.
+// The player's room is shown too, as rooms only count as visited once the player has left them.
+// Each room draws the half of every exit on its own side, so an exit into a room not visited yet
+// shows as a stub, and a door locked on this side is drawn red. Zoomed far out, the visited rooms are
+// drawn from a one-pixel-per-cell image that is rebuilt only when a room has been visited since.
+// Drag to move the map, scroll to zoom and double-click to find the player again.
+public class WorldMapPanel extends JComponent {
+    private static final double MIN_SCALE = 0.25;    // Pixels per cell when zoomed all the way out
+    private static final double MAX_SCALE = 128;
+    private static final double START_SCALE = 64;
+    private static final double DETAIL_SCALE = 10;   // Below this the overview image is drawn instead of rooms
+    private static final double SMOOTH_SCALE = 48;   // From this size on lines are antialiased
+    private static final double NAME_SCALE = 56;     // From this size on rooms are labelled
+    private static final double ZOOM_STEP = 1.25;    // Zoom for one notch of the mouse wheel
+    private static final int MAX_OVERVIEW_PIXELS = 1 << 24; // Larger layouts are always drawn room by room
+    private static final Color EXIT_COLOR = Color.GRAY;
+    private static final Color LOCKED_COLOR = new Color(200, 40, 40);
+    private static final Color ROOM_COLOR = new Color(40, 40, 60);
+    private static final Color CURRENT_COLOR = new Color(230, 190, 40);
+
+    private final WorldTemplate world;
+    private final WorldLayout layout;
+    private final RoomGraph graph;
+    private final BitSet visited;      // The session's visited rooms, read as they are
+    private final BitSet changedLocks; // The session's door changes
+    private int currentRoom = -1;
+    private double scale = START_SCALE;
+    private double viewX, viewY;       // Cell at the middle of the component
+    private Point dragFrom;
+    private BufferedImage overview;    // Visited rooms at one pixel per cell, or null before it is needed
+    private int overviewVisited = -1;  // Number of visited rooms when overview was drawn
+
+    public WorldMapPanel(Map map) {
+        world = map.getWorld();
+        layout = world.getLayout();
+        graph = world.getGraph();
+        visited = map.getVisitedRooms();
+        changedLocks = map.getChangedLocks();
+        setOpaque(true);
+        setBackground(Color.BLACK);
+        setFont(new Font("Monospaced", Font.PLAIN, 12));
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragFrom = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragFrom != null) {
+                    viewX -= (e.getX() - dragFrom.x) / scale;
+                    viewY -= (e.getY() - dragFrom.y) / scale;
+                    dragFrom = e.getPoint();
+                    repaint();
+                }
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    centerOnCurrentRoom();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    // Mark the player's room and move the map to it
+    public void setCurrentRoom(int room) {
+        currentRoom = room;
+        centerOnCurrentRoom();
+    }
+
+    public void centerOnCurrentRoom() {
+        if (currentRoom >= 0) {
+            viewX = layout.getX(currentRoom) + 0.5;
+            viewY = layout.getY(currentRoom) + 0.5;
+        }
+        repaint();
+    }
+
+    // Zoom by a factor, keeping the cell under (pivotX, pivotY) where it is
+    public void zoom(double factor, int pivotX, int pivotY) {
+        double newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        double offsetX = pivotX - getWidth() / 2.0, offsetY = pivotY - getHeight() / 2.0;
+        viewX += offsetX / scale - offsetX / newScale;
+        viewY += offsetY / scale - offsetY / newScale;
+        scale = newScale;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            if (scale < DETAIL_SCALE && (long) layout.getWidth() * layout.getHeight() <= MAX_OVERVIEW_PIXELS) {
+                paintOverview(g);
+            } else {
+                if (scale >= SMOOTH_SCALE) {
+                    g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                }
+                paintRooms(g);
+            }
+            paintCurrentRoom(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    // Screen position of the left or top edge of a cell
+    private double screenX(double cellX) {
+        return (cellX - viewX) * scale + getWidth() / 2.0;
+    }
+
+    private double screenY(double cellY) {
+        return (cellY - viewY) * scale + getHeight() / 2.0;
+    }
+
+    private void paintOverview(Graphics2D g) {
+        int count = visited.cardinality();
+        if (overview == null || overviewVisited != count) {
+            if (overview == null) {
+                overview = new BufferedImage(layout.getWidth(), layout.getHeight(), BufferedImage.TYPE_INT_RGB); // Opaque, so it is copied rather than blended
+            }
+            int[] pixels = ((DataBufferInt) overview.getRaster().getDataBuffer()).getData();
+            Arrays.fill(pixels, getBackground().getRGB());
+            int rgb = Color.LIGHT_GRAY.getRGB();
+            for (int room = visited.nextSetBit(0); room >= 0 && room < layout.getRoomCount(); room = visited.nextSetBit(room + 1)) {
+                pixels[layout.getY(room) * layout.getWidth() + layout.getX(room)] = rgb;
+            }
+            overviewVisited = count;
+        }
+        if (scale < 1) {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR); // Keeps rooms from vanishing between pixels
+        }
+
+        // Only the part of the image that is on screen, so zooming in does not scale up the whole image
+        int fromX = Math.max(0, (int) Math.floor(viewX - getWidth() / 2.0 / scale));
+        int toX = Math.min(layout.getWidth(), (int) Math.ceil(viewX + getWidth() / 2.0 / scale));
+        int fromY = Math.max(0, (int) Math.floor(viewY - getHeight() / 2.0 / scale));
+        int toY = Math.min(layout.getHeight(), (int) Math.ceil(viewY + getHeight() / 2.0 / scale));
+        if (fromX < toX && fromY < toY) {
+            g.drawImage(overview, (int) Math.floor(screenX(fromX)), (int) Math.floor(screenY(fromY)),
+                    (int) Math.ceil(screenX(toX)), (int) Math.ceil(screenY(toY)), fromX, fromY, toX, toY, null);
+        }
+    }
+
+    private void paintRooms(Graphics2D g) {
+        // Cells that can be seen, plus one on every side for exits coming in from just outside
+        int minX = (int) Math.floor(viewX - getWidth() / 2.0 / scale) - 1;
+        int maxX = (int) Math.ceil(viewX + getWidth() / 2.0 / scale) + 1;
+        int minY = (int) Math.floor(viewY - getHeight() / 2.0 / scale) - 1;
+        int maxY = (int) Math.ceil(viewY + getHeight() / 2.0 / scale) + 1;
+        int fromBucketX = Math.max(0, minX / WorldLayout.BUCKET_CELLS), toBucketX = Math.min(layout.getBucketsX() - 1, maxX / WorldLayout.BUCKET_CELLS);
+        int fromBucketY = Math.max(0, minY / WorldLayout.BUCKET_CELLS), toBucketY = Math.min(layout.getBucketsY() - 1, maxY / WorldLayout.BUCKET_CELLS);
+        if (maxX < 0 || maxY < 0 || fromBucketX > toBucketX || fromBucketY > toBucketY) {
+            return; // Scrolled away from the world
+        }
+
+        // Exits first, then the rooms on top of them
+        for (int pass = 0; pass < 2; pass++) {
+            g.setStroke(new BasicStroke(pass == 0 ? Math.max(1, (int) (scale / 24)) : 1)); // Whole pixels, so thin lines take the fast path
+            for (int bucketY = fromBucketY; bucketY <= toBucketY; bucketY++) {
+                for (int bucketX = fromBucketX; bucketX <= toBucketX; bucketX++) {
+                    int bucket = bucketY * layout.getBucketsX() + bucketX;
+                    for (int index = layout.firstInBucket(bucket); index < layout.firstInBucket(bucket + 1); index++) {
+                        int room = layout.getBucketRoom(index);
+                        int x = layout.getX(room), y = layout.getY(room);
+                        if (!visited.get(room) && room != currentRoom || x < minX || x > maxX || y < minY || y > maxY) {
+                            continue;
+                        }
+                        if (pass == 0) {
+                            paintExits(g, room);
+                        } else {
+                            paintRoom(g, room);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // This room's half of each of its exits
+    private void paintExits(Graphics2D g, int room) {
+        double fromX = layout.getX(room) + 0.5, fromY = layout.getY(room) + 0.5;
+        for (int edge = graph.firstEdge(room); edge < graph.firstEdge(room + 1); edge++) {
+            int target = graph.getTarget(edge);
+            double middleX = (fromX + layout.getX(target) + 0.5) / 2, middleY = (fromY + layout.getY(target) + 0.5) / 2;
+            g.setColor(graph.isLocked(edge, changedLocks) ? LOCKED_COLOR : EXIT_COLOR);
+            g.drawLine((int) screenX(fromX), (int) screenY(fromY), (int) screenX(middleX), (int) screenY(middleY));
+        }
+    }
+
+    private void paintRoom(Graphics2D g, int room) {
+        double size = scale * 0.6;
+        int left = (int) screenX(layout.getX(room) + 0.2), top = (int) screenY(layout.getY(room) + 0.2);
+        int side = (int) Math.max(1, size);
+        g.setColor(ROOM_COLOR);
+        g.fillRect(left, top, side, side);
+        g.setColor(Color.WHITE);
+        g.drawRect(left, top, side, side);
+        if (scale >= NAME_SCALE) {
+            Shape clip = g.getClip();
+            g.clipRect(left + 2, top, side - 4, side);
+            g.drawString(world.getRoomName(room), left + 3, top + g.getFontMetrics().getAscent() + 2);
+            g.setClip(clip);
+        }
+    }
+
+    // The player's room stands out at any zoom
+    private void paintCurrentRoom(Graphics2D g) {
+        if (currentRoom < 0) {
+            return;
+        }
+        int side = (int) Math.max(6, scale * 0.6);
+        int centerX = (int) screenX(layout.getX(currentRoom) + 0.5), centerY = (int) screenY(layout.getY(currentRoom) + 0.5);
+        g.setColor(CURRENT_COLOR);
+        g.setStroke(new BasicStroke(2));
+        g.drawRect(centerX - side / 2, centerY - side / 2, side, side);
+    }
+}
@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+// The static part of a world: rooms, their exit graph, starting items and enemies.
+// It is built once and shared by every game session; sessions keep their changes in their own Map.
+public class WorldTemplate {
+    private final RoomTemplate[] rooms; // Rooms indexed by their id, null when a subclass supplies them
+    private final RoomGraph graph;      // Exits and locks of every room
+    private final int startRoom;        // Id of the room the player starts in
+    private final List<Item> itemDefinitions; // Every item defined by the world
+    private Router router;                    // Created when the first route is needed
+    private WorldLayout layout;               // Created when the map is first shown
+    private String source = "";               // File the world was opened from, empty if it was built in code
+    private HashMap<String, Integer> roomsByName; // Lower case room name -> id, built on first lookup
+
+    public WorldTemplate(RoomTemplate[] rooms, RoomGraph graph, int startRoom, List<Item> itemDefinitions) {
+        this.rooms = rooms;
+        this.graph = graph;
+        this.startRoom = startRoom;
+        this.itemDefinitions = List.copyOf(itemDefinitions);
+    }
+
+    // For subclasses that create their rooms on demand
+    protected WorldTemplate(RoomGraph graph, int startRoom, List<Item> itemDefinitions) {
+        this(null, graph, startRoom, itemDefinitions);
+    }
+
+    // Open a world file: .world text files are parsed, compiled .wbin files are memory-mapped
+    public static WorldTemplate open(Path path) throws IOException, WorldFormatException {
+        WorldTemplate world = path.toString().endsWith(MappedWorldTemplate.FILE_EXTENSION)
+                ? new MappedWorldTemplate(path) : WorldLoader.load(path);
+        world.source = path.toString();
+        return world;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getRoomCount() {
+        return graph.getRoomCount();
+    }
+
+    public RoomGraph getGraph() {
+        return graph;
+    }
+
+    public RoomTemplate getRoom(int id) {
+        return rooms[id];
+    }
+
+    // Shared shortest-route cache for this world
+    public synchronized Router getRouter() {
+        if (router == null) {
+            router = new Router(graph);
+        }
+        return router;
+    }
+
+    // Where the rooms go on the map
+    public synchronized WorldLayout getLayout() {
+        if (layout == null) {
+            layout = new WorldLayout(graph);
+        }
+        return layout;
+    }
+
+    // Id of the room with the given name (ignoring case), or -1. With duplicate names the first room wins.
+    // Worlds in memory index their names here; MappedWorldTemplate searches the index in its file.
+    public int findRoom(String name) {
+        HashMap<String, Integer> index;
+        synchronized (this) {
+            if (roomsByName == null) {
+                roomsByName = new HashMap<>(getRoomCount() * 2);
+                for (int id = getRoomCount() - 1; id >= 0; id--) {
+                    roomsByName.put(getRoomName(id).toLowerCase(Locale.ROOT), id);
+                }
+            }
+            index = roomsByName;
+        }
+        Integer id = index.get(name.toLowerCase(Locale.ROOT));
+        return id == null ? -1 : id;
+    }
+
+    // Name of a room; subclasses may read it without building the whole room
+    protected String getRoomName(int id) {
+        return getRoom(id).getName();
+    }
+
+    public int getStartRoom() {
+        return startRoom;
+    }
+
+    public List<Item> getItemDefinitions() {
+        return itemDefinitions;
+    }
+}